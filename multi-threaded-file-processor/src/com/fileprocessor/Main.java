@@ -2,10 +2,32 @@
 package com.fileprocessor;
 
 import com.fileprocessor.config.ProcessorConfig;
+import com.fileprocessor.daemon.ConfigOverrides;
+import com.fileprocessor.daemon.DaemonClient;
+import com.fileprocessor.daemon.ProcessingDaemon;
+import com.fileprocessor.distributed.Coordinator;
+import com.fileprocessor.distributed.Worker;
 import com.fileprocessor.manager.ProcessingPipeline;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--coordinator")) {
+            runCoordinator(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--worker")) {
+            runWorker(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--daemon")) {
+            runDaemon(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--submit")) {
+            runSubmit(args);
+            return;
+        }
+        
         System.out.println("Multi-threaded File Processor Starting...");
         
         try {
@@ -49,9 +71,138 @@ public class Main {
         System.out.println("Processing completed successfully!");
     }
 
-    private static ProcessorConfig createConfig(String[] args) {
+    /**
+     * --coordinator [inputDir] [outputDir] [port] [transformation] [key=value ...];
+     * threads and chunk size are given as threadPoolSize= and chunkSize=
+     */
+    private static void runCoordinator(String[] args) {
+        try {
+            java.util.List<String> configArgs = new java.util.ArrayList<>();
+            java.util.List<String> positional = new java.util.ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                (isOverride(args[i]) ? configArgs : positional).add(args[i]);
+            }
+            int port = positional.size() > 2 ? Integer.parseInt(positional.get(2)) : 9090;
+            String transformation = positional.size() > 3 ? positional.get(3) : "DEFAULT";
+            configArgs.addAll(0, positional.subList(0, Math.min(2, positional.size())));
+            ProcessorConfig config = createConfig(configArgs.toArray(new String[0]));
+            new java.io.File(config.getOutputDirectory()).mkdirs();
+            
+            Coordinator coordinator = new Coordinator(config, port, transformation);
+            coordinator.execute();
+            
+            var stats = coordinator.getStats();
+            System.out.println("\n=== DISTRIBUTED PROCESSING SUMMARY ===");
+            System.out.println("Files processed: " + stats.getFilesProcessed());
+            System.out.println("Chunks processed: " + stats.getChunksProcessed());
+            System.out.println("Total records: " + stats.getTotalRecords());
+            System.out.println("Records written: " + coordinator.getRecordsWritten());
+            System.out.println("Errors: " + stats.getErrorCount());
+            System.out.println("Processing time: " + stats.getProcessingTime() + "ms");
+        } catch (Exception e) {
+            System.err.println("Coordinator failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * --worker [host] [port] [threads]
+     */
+    private static void runWorker(String[] args) {
+        String host = args.length > 1 ? args[1] : "localhost";
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 9090;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 
+            Runtime.getRuntime().availableProcessors();
+        try {
+            new Worker(host, port, threads).run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * --daemon [port] [cpuThreads] [ioThreads] [maxConcurrentJobs]
+     */
+    private static void runDaemon(String[] args) {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9191;
+        ProcessorConfig config = new ProcessorConfig();
+        if (args.length > 2) {
+            config.setThreadPoolSize(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            config.setIoThreads(Integer.parseInt(args[3]));
+        }
+        int maxJobs = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        ProcessingDaemon daemon = new ProcessingDaemon(config, port, maxJobs);
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+        try {
+            daemon.run();
+        } catch (java.io.IOException e) {
+            System.err.println("Daemon failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * --submit port (inputDir outputDir [key=value ...] | STATUS | CANCEL jobId | SHUTDOWN)
+     */
+    private static void runSubmit(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: --submit port (inputDir outputDir [key=value ...] | STATUS | " +
+                             "CANCEL jobId | SHUTDOWN)");
+            System.exit(1);
+        }
+        int port = Integer.parseInt(args[1]);
+        try {
+            String response;
+            if (args[2].equals(ProcessingDaemon.STATUS) || args[2].equals(ProcessingDaemon.CANCEL) ||
+                args[2].equals(ProcessingDaemon.SHUTDOWN)) {
+                response = DaemonClient.send(port, String.join("\t", 
+                    java.util.Arrays.asList(args).subList(2, args.length)));
+            } else if (args.length < 4) {
+                System.err.println("Usage: --submit port inputDir outputDir [key=value ...]");
+                System.exit(1);
+                return;
+            } else {
+                response = DaemonClient.submit(port, args[2], args[3],
+                    java.util.Arrays.asList(args).subList(4, args.length));
+            }
+            System.out.println(response.replace('\t', ' '));
+            if (!response.startsWith("OK")) {
+                System.exit(1);
+            }
+        } catch (java.io.IOException e) {
+            System.err.println("Cannot reach daemon on port " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static boolean isOverride(String arg) {
+        int eq = arg.indexOf('=');
+        return eq > 0 && arg.substring(0, eq).matches("[A-Za-z]+");
+    }
+
+    /**
+     * [inputDir] [outputDir] [threads] [chunkSize] [key=value ...]; any
+     * key=value argument sets the config property of that name, e.g.
+     * groupByKeyField=2
+     */
+    private static ProcessorConfig createConfig(String[] allArgs) {
         ProcessorConfig config = new ProcessorConfig();
         
+        java.util.List<String> positional = new java.util.ArrayList<>();
+        java.util.Map<String, String> overrides = new java.util.LinkedHashMap<>();
+        for (String arg : allArgs) {
+            if (isOverride(arg)) {
+                int eq = arg.indexOf('=');
+                overrides.put(arg.substring(0, eq), arg.substring(eq + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+        String[] args = positional.toArray(new String[0]);
+        
         // Parse command line arguments
         if (args.length > 0) {
             config.setInputDirectory(args[0]);
@@ -81,6 +232,8 @@ public class Main {
             }
         }
         
+        ConfigOverrides.apply(config, overrides);
+        
         // Print configuration
         System.out.println("Configuration:");
         System.out.println("  Input Directory: " + config.getInputDirectory());
@@ -89,6 +242,7 @@ public class Main {
         System.out.println("  Chunk Size: " + config.getChunkSize());
         System.out.println("  Remove Duplicates: " + config.isRemoveDuplicates());
         System.out.println("  Sort Output: " + config.isSortOutput());
+        overrides.forEach((key, value) -> System.out.println("  " + key + ": " + value));
         
         return config;
     }
@@ -100,9 +254,10 @@ public class Main {
         System.out.println("Chunks processed: " + stats.getChunksProcessed());
         System.out.println("Total records: " + stats.getTotalRecords());
         System.out.println("Errors: " + stats.getErrorCount());
+        System.out.println("Failed lines: " + stats.getFailedLines());
         System.out.println("Processing time: " + stats.getProcessingTime() + "ms");
         
-        var aggStats = pipeline.getResultAggregator().getAggregationStats();
+        var aggStats = pipeline.getAggregationStats();
         System.out.println("Aggregation Stats: " + aggStats.toString());
     }
 }
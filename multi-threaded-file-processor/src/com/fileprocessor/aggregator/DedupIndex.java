@@ -0,0 +1,492 @@
+package com.fileprocessor.aggregator;
+
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.model.IdHash;
+import com.fileprocessor.model.ProcessedData;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persistent set of record ID fingerprints used to drop records that an
+ * earlier run already emitted. The index is split into shards, each an
+ * open-addressing table of 16-byte slots (64-bit fingerprint, generation)
+ * in a memory-mapped file, so a probe costs about one page-cache lookup.
+ *
+ * Slots are claimed with compare-and-set under a shard read lock, so
+ * workers insert concurrently. A shard past half full is rehashed into a
+ * file twice the size on a background thread while inserts continue;
+ * inserts made during the copy are replayed under the write lock before
+ * the new table is swapped in.
+ *
+ * Every run inserts with a new generation and only marks it committed
+ * once its output is written. Opening the index purges the entries of
+ * every generation after the last committed one, so IDs a crashed or
+ * cancelled run never emitted are new again, however many runs have
+ * committed since. Distinct IDs collide with probability about n^2 / 2^65.
+ */
+public class DedupIndex implements Closeable {
+    private static final long MAGIC = 0x4650444544555031L;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 16;
+    private static final int COMMITTED_OFFSET = 24;
+    private static final int LAST_GENERATION_OFFSET = 32;
+    private static final long MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_BYTES) / SLOT_BYTES;
+    private static final double GROW_LOAD = 0.5;
+    private static final double HARD_LOAD = 0.9;
+    private static final VarHandle LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final File directory;
+    private final Shard[] shards;
+    private final int shardShift;
+    private final long generation;
+    private final ExecutorService rehasher;
+    private final AtomicLong duplicates = new AtomicLong(0);
+    private final long purged;
+    private boolean closed;
+
+    /**
+     * Open or create the index in a directory
+     *
+     * @param shardCount      power of two; fixed once the index exists
+     * @param initialCapacity slots per shard for a new index, rounded up to a power of two
+     */
+    public DedupIndex(File directory, int shardCount, int initialCapacity) {
+        if (Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Shard count must be a power of two: " + shardCount);
+        }
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new FileProcessingException("Cannot create dedup index directory: " + directory);
+        }
+        File[] abandoned = directory.listFiles((dir, name) -> name.endsWith(".tmp"));
+        if (abandoned != null) {
+            for (File file : abandoned) {
+                file.delete();
+            }
+        }
+
+        this.shards = new Shard[shardCount];
+        this.shardShift = 64 - Integer.numberOfTrailingZeros(shardCount);
+        long committed = 0;
+        long lastGeneration = 0;
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(new File(directory, String.format("shard-%03d.idx", i)),
+                                  Long.highestOneBit(Math.max(16, initialCapacity - 1) * 2L));
+            committed = Math.max(committed, shards[i].table.committed());
+            lastGeneration = Math.max(lastGeneration, shards[i].table.lastGeneration());
+        }
+        long purgedEntries = 0;
+        if (lastGeneration > committed) {
+            // An earlier run claimed a generation and never committed it
+            for (Shard shard : shards) {
+                purgedEntries += shard.purgeUncommitted(committed);
+            }
+        }
+        this.purged = purgedEntries;
+        this.generation = committed + 1;
+        for (Shard shard : shards) {
+            shard.table.claimGeneration(generation);
+        }
+        this.rehasher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "dedup-rehash");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Record an ID
+     *
+     * @return true if neither a committed run nor this run has seen it before
+     */
+    public boolean add(String id) {
+        long fingerprint = IdHash.fingerprint(id);
+        Shard shard = shards[shardShift == 64 ? 0 : (int) (fingerprint >>> shardShift)];
+        return shard.add(fingerprint);
+    }
+
+    /**
+     * Filter a batch down to the records whose IDs are new
+     */
+    public List<ProcessedData> retainNew(List<ProcessedData> results) {
+        List<ProcessedData> fresh = new ArrayList<>(results.size());
+        for (ProcessedData data : results) {
+            if (add(data.getId())) {
+                fresh.add(data);
+            }
+        }
+        duplicates.addAndGet(results.size() - fresh.size());
+        return fresh;
+    }
+
+    /**
+     * Mark this run's entries as permanent. Call once its output is safely written.
+     */
+    public void commit() {
+        for (Shard shard : shards) {
+            shard.awaitGrowth();
+            shard.writeHeader(generation);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Shard shard : shards) {
+            shard.awaitGrowth();
+        }
+        rehasher.shutdown();
+        for (Shard shard : shards) {
+            shard.writeHeader(shard.table.committed());
+            shard.table.close();
+        }
+    }
+
+    public long getSize() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.size.get();
+        }
+        return size;
+    }
+
+    public long getDuplicateCount() { return duplicates.get(); }
+    public long getPurgedCount() { return purged; }
+    public long getGeneration() { return generation; }
+    public File getDirectory() { return directory; }
+
+    /**
+     * One table file plus the machinery to grow it
+     */
+    private class Shard {
+        private final File file;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final AtomicLong size = new AtomicLong(0);
+        private final Queue<Long> delta = new ConcurrentLinkedQueue<>();
+        private volatile Table table;
+        private volatile boolean migrating;
+        private Future<?> growth;
+
+        Shard(File file, long initialCapacity) {
+            this.file = file;
+            this.table = file.exists() ? Table.open(file) : Table.create(file, initialCapacity, 0);
+            this.size.set(table.storedSize());
+        }
+
+        boolean add(long fingerprint) {
+            while (true) {
+                int outcome;
+                Table current;
+                lock.readLock().lock();
+                try {
+                    current = table;
+                    if (size.get() < current.capacity * HARD_LOAD) {
+                        outcome = current.insert(fingerprint, generation);
+                        if (outcome == Table.INSERTED) {
+                            size.incrementAndGet();
+                            if (migrating) {
+                                delta.add(fingerprint);
+                            }
+                            if (size.get() > current.capacity * GROW_LOAD) {
+                                startGrowth();
+                            }
+                            return true;
+                        }
+                        if (outcome == Table.PRESENT) {
+                            return false;
+                        }
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                // Too full to insert safely; wait for the bigger table and retry
+                startGrowth();
+                awaitGrowth();
+            }
+        }
+
+        synchronized void startGrowth() {
+            if (growth == null || growth.isDone()) {
+                if (table.capacity * 2 > MAX_CAPACITY) {
+                    throw new FileProcessingException("Dedup index shard " + file.getName() +
+                        " cannot grow past " + MAX_CAPACITY + " slots; use more shards");
+                }
+                migrating = true;
+                growth = rehasher.submit(this::grow);
+            }
+        }
+
+        void awaitGrowth() {
+            Future<?> pending;
+            synchronized (this) {
+                pending = growth;
+            }
+            if (pending == null) {
+                return;
+            }
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FileProcessingException("Interrupted while growing dedup index");
+            } catch (ExecutionException e) {
+                throw new FileProcessingException("Failed to grow dedup index shard " + file.getName(),
+                                                  e.getCause());
+            }
+        }
+
+        /**
+         * Copy live entries into a table twice the size, then swap it in.
+         * Runs on the rehash thread; migrating was set before it started, so
+         * any insert the scan can miss is also in the delta queue.
+         */
+        private void grow() {
+            Table old = table;
+            File temp = new File(file.getPath() + ".tmp");
+            Table next = Table.create(temp, old.capacity * 2, old.committed());
+            LONGS.set(next.buffer, LAST_GENERATION_OFFSET, generation);
+            long copied = 0;
+            for (long slot = 0; slot < old.capacity; slot++) {
+                long fingerprint = old.fingerprintAt(slot);
+                if (fingerprint != 0) {
+                    long slotGeneration = old.generationAt(slot);
+                    // 0 means this run just claimed the fingerprint and its generation is being written
+                    next.put(fingerprint, slotGeneration == 0 ? generation : slotGeneration);
+                    copied++;
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                Long fingerprint;
+                while ((fingerprint = delta.poll()) != null) {
+                    if (next.insert(fingerprint, generation) == Table.INSERTED) {
+                        copied++;
+                    }
+                }
+                next.writeHeader(copied, old.committed());
+                next.force();
+                moveInto(temp, file);
+                table = next;
+                size.set(copied);
+                migrating = false;
+                old.close();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Rewrite the table without the entries of generations after the
+         * committed one. Runs while opening, before any insert.
+         *
+         * @return entries dropped
+         */
+        long purgeUncommitted(long committed) {
+            Table old = table;
+            File temp = new File(file.getPath() + ".tmp");
+            Table next = Table.create(temp, old.capacity, committed);
+            long kept = 0;
+            long dropped = 0;
+            for (long slot = 0; slot < old.capacity; slot++) {
+                long fingerprint = old.fingerprintAt(slot);
+                if (fingerprint != 0) {
+                    long slotGeneration = old.generationAt(slot);
+                    // 0 is a slot claimed by a run that died before writing its generation
+                    if (slotGeneration != 0 && slotGeneration <= committed) {
+                        next.put(fingerprint, slotGeneration);
+                        kept++;
+                    } else {
+                        dropped++;
+                    }
+                }
+            }
+            next.writeHeader(kept, committed);
+            next.force();
+            moveInto(temp, file);
+            table = next;
+            size.set(kept);
+            old.close();
+            return dropped;
+        }
+
+        void writeHeader(long committed) {
+            lock.writeLock().lock();
+            try {
+                table.writeHeader(size.get(), committed);
+                table.force();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static void moveInto(File source, File target) {
+        try {
+            try {
+                Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to replace dedup index file " + target, e);
+        }
+    }
+
+    /**
+     * A mapped open-addressing table with linear probing. Header: magic,
+     * capacity, size, committed generation; then capacity slots of
+     * (fingerprint, generation).
+     */
+    private static class Table {
+        static final int INSERTED = 0;
+        static final int PRESENT = 1;
+        static final int FULL = 2;
+
+        final long capacity;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Table(FileChannel channel, MappedByteBuffer buffer, long capacity) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        static Table create(File file, long capacity, long committed) {
+            try {
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + capacity * SLOT_BYTES);
+                LONGS.set(buffer, 0, MAGIC);
+                LONGS.set(buffer, CAPACITY_OFFSET, capacity);
+                LONGS.set(buffer, SIZE_OFFSET, 0L);
+                LONGS.set(buffer, COMMITTED_OFFSET, committed);
+                return new Table(channel, buffer, capacity);
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to create dedup index file " + file, e);
+            }
+        }
+
+        static Table open(File file) {
+            try {
+                FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                long capacity = (long) LONGS.get(buffer, CAPACITY_OFFSET);
+                if ((long) LONGS.get(buffer, 0) != MAGIC
+                        || channel.size() != HEADER_BYTES + capacity * SLOT_BYTES) {
+                    channel.close();
+                    throw new FileProcessingException("Not a dedup index file: " + file);
+                }
+                return new Table(channel, buffer, capacity);
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to open dedup index file " + file, e);
+            }
+        }
+
+        /**
+         * Claim the fingerprint for a generation unless it is already present
+         */
+        int insert(long fingerprint, long generation) {
+            long mask = capacity - 1;
+            long slot = fingerprint & mask;
+            for (long probes = 0; probes < capacity; probes++) {
+                int offset = offsetOf(slot);
+                long current = (long) LONGS.getVolatile(buffer, offset);
+                if (current == 0) {
+                    if (LONGS.compareAndSet(buffer, offset, 0L, fingerprint)) {
+                        LONGS.setVolatile(buffer, offset + 8, generation);
+                        return INSERTED;
+                    }
+                    current = (long) LONGS.getVolatile(buffer, offset);
+                }
+                if (current == fingerprint) {
+                    return PRESENT;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return FULL;
+        }
+
+        /**
+         * Single-threaded insert used while building a new table
+         */
+        void put(long fingerprint, long generation) {
+            long mask = capacity - 1;
+            long slot = fingerprint & mask;
+            while ((long) LONGS.get(buffer, offsetOf(slot)) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            LONGS.set(buffer, offsetOf(slot), fingerprint);
+            LONGS.set(buffer, offsetOf(slot) + 8, generation);
+        }
+
+        long fingerprintAt(long slot) {
+            return (long) LONGS.getVolatile(buffer, offsetOf(slot));
+        }
+
+        long generationAt(long slot) {
+            return (long) LONGS.getVolatile(buffer, offsetOf(slot) + 8);
+        }
+
+        long storedSize() { return (long) LONGS.get(buffer, SIZE_OFFSET); }
+        long committed() { return (long) LONGS.get(buffer, COMMITTED_OFFSET); }
+        long lastGeneration() { return (long) LONGS.get(buffer, LAST_GENERATION_OFFSET); }
+
+        void claimGeneration(long generation) {
+            LONGS.setVolatile(buffer, LAST_GENERATION_OFFSET, generation);
+            buffer.force();
+        }
+
+        void writeHeader(long size, long committed) {
+            LONGS.setVolatile(buffer, SIZE_OFFSET, size);
+            LONGS.setVolatile(buffer, COMMITTED_OFFSET, committed);
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The mapping stays valid until collected; nothing else to release
+            }
+        }
+
+        private static int offsetOf(long slot) {
+            return (int) (HEADER_BYTES + slot * SLOT_BYTES);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.fileprocessor.aggregator;
+
+/**
+ * Extracts a field from a raw input line for grouping
+ */
+@FunctionalInterface
+public interface FieldExtractor {
+    String extract(String line, int lineNumber, String sourceFile);
+    
+    // Common extractor implementations
+    FieldExtractor WHOLE_LINE = (line, lineNumber, sourceFile) -> line;
+    
+    FieldExtractor SOURCE_FILE = (line, lineNumber, sourceFile) -> sourceFile;
+    
+    /**
+     * Field at the given zero-based index of a delimited line, or null when
+     * the line has fewer fields
+     */
+    static FieldExtractor delimited(char delimiter, int index) {
+        return (line, lineNumber, sourceFile) -> {
+            int start = fieldStart(line, delimiter, index);
+            if (start < 0) {
+                return null;
+            }
+            return line.substring(start, fieldEnd(line, delimiter, start));
+        };
+    }
+    
+    static int fieldStart(String line, char delimiter, int index) {
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            int next = line.indexOf(delimiter, start);
+            if (next < 0) {
+                return -1;
+            }
+            start = next + 1;
+        }
+        return start;
+    }
+    
+    static int fieldEnd(String line, char delimiter, int start) {
+        int end = line.indexOf(delimiter, start);
+        return end < 0 ? line.length() : end;
+    }
+}
@@ -0,0 +1,103 @@
+package com.fileprocessor.aggregator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Group-by aggregation over raw lines. Each chunk folds records into a
+ * PartialAggregate of its own, merged into its worker thread's partial once
+ * the chunk commits; only the thread partials are merged at the end, so
+ * memory scales with distinct keys rather than record count.
+ */
+public class GroupByAggregator {
+    private final FieldExtractor keyExtractor;
+    private final ValueExtractor valueExtractor;
+    private final FieldExtractor distinctExtractor;
+    private final Queue<PartialAggregate> partials = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<PartialAggregate> localPartial;
+
+    /**
+     * Count records per key
+     */
+    public GroupByAggregator(FieldExtractor keyExtractor) {
+        this(keyExtractor, ValueExtractor.ONE, null);
+    }
+
+    /**
+     * @param keyExtractor      field to group by; lines with a null key are skipped
+     * @param valueExtractor    numeric field for sum/min/max
+     * @param distinctExtractor field whose distinct values are counted, or null
+     */
+    public GroupByAggregator(FieldExtractor keyExtractor, ValueExtractor valueExtractor,
+                            FieldExtractor distinctExtractor) {
+        this.keyExtractor = keyExtractor;
+        this.valueExtractor = valueExtractor;
+        this.distinctExtractor = distinctExtractor;
+        this.localPartial = ThreadLocal.withInitial(() -> {
+            PartialAggregate partial = new PartialAggregate();
+            partials.add(partial);
+            return partial;
+        });
+    }
+
+    /**
+     * Fold a line into a chunk's own partial, to be merged once the chunk
+     * commits
+     *
+     * @return true if the line was counted towards a group
+     */
+    public boolean accumulate(String line, int lineNumber, String sourceFile, PartialAggregate partial) {
+        String key = keyExtractor.extract(line, lineNumber, sourceFile);
+        if (key == null) {
+            return false;
+        }
+        long value = valueExtractor.extract(line, lineNumber, sourceFile);
+        String distinct = distinctExtractor == null ? null 
+            : distinctExtractor.extract(line, lineNumber, sourceFile);
+        partial.accumulate(key, value, distinct);
+        return true;
+    }
+
+    /**
+     * Merge a committed chunk's partial into the calling thread's partial
+     */
+    public void merge(PartialAggregate chunkPartial) {
+        localPartial.get().mergeFrom(chunkPartial);
+    }
+
+    /**
+     * Merge all worker partials. Only call once every task has completed.
+     */
+    public PartialAggregate combine() {
+        PartialAggregate combined = new PartialAggregate();
+        for (PartialAggregate partial : partials) {
+            combined.mergeFrom(partial);
+        }
+        return combined;
+    }
+
+    /**
+     * Combined results sorted by key
+     */
+    public List<GroupResult> getResults() {
+        List<GroupResult> results = new ArrayList<>();
+        combine().forEach((key, result) -> results.add(result));
+        Collections.sort(results);
+        return results;
+    }
+
+    public int getPartialCount() {
+        return partials.size();
+    }
+
+    public enum Operation {
+        COUNT,          // Number of records per key
+        SUM,            // Sum of the value field
+        MIN,            // Minimum of the value field
+        MAX,            // Maximum of the value field
+        DISTINCT_COUNT  // Number of distinct values of the distinct field
+    }
+}
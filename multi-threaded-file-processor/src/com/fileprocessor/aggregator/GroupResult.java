@@ -0,0 +1,61 @@
+package com.fileprocessor.aggregator;
+
+/**
+ * Final aggregated values for a single group key
+ */
+public class GroupResult implements Comparable<GroupResult> {
+    private final String key;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+    private final long distinctCount;
+
+    public GroupResult(String key, long count, long sum, long min, long max, long distinctCount) {
+        this.key = key;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.distinctCount = distinctCount;
+    }
+
+    /**
+     * Value of a single aggregation operation
+     */
+    public long getValue(GroupByAggregator.Operation operation) {
+        switch (operation) {
+            case COUNT:
+                return count;
+            case SUM:
+                return sum;
+            case MIN:
+                return min;
+            case MAX:
+                return max;
+            case DISTINCT_COUNT:
+                return distinctCount;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    @Override
+    public int compareTo(GroupResult other) {
+        return this.key.compareTo(other.key);
+    }
+
+    // Getters
+    public String getKey() { return key; }
+    public long getCount() { return count; }
+    public long getSum() { return sum; }
+    public long getMin() { return min; }
+    public long getMax() { return max; }
+    public long getDistinctCount() { return distinctCount; }
+
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, sum=%d, min=%d, max=%d, distinct=%d}",
+            key, count, sum, min, max, distinctCount);
+    }
+}
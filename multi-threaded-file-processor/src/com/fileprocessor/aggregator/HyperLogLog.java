@@ -0,0 +1,117 @@
+package com.fileprocessor.aggregator;
+
+import com.fileprocessor.model.IdHash;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size sketch estimating the number of distinct record IDs it has
+ * seen. Memory is 2^precision bytes whatever the input size, and the
+ * relative standard error is about 1.04 / sqrt(2^precision), e.g. 0.8% at
+ * the default precision of 14 (16KB). Sketches of the same precision merge
+ * losslessly, so separately built sketches combine into the sketch of the
+ * union.
+ */
+public class HyperLogLog {
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision log2 of the register count, 4 to 18
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String id) {
+        addHash(IdHash.fingerprint(id));
+    }
+
+    /**
+     * Add a well-mixed 64-bit hash; the top bits pick the register and the
+     * position of the first one bit in the rest is the observed rank
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // the guard bit caps the rank when every remaining bit is zero
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Fold another sketch into this one, which then estimates the union
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " +
+                                               other.precision + " and " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Estimated number of distinct IDs added
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // linear counting is far more accurate while many registers are empty
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        System.arraycopy(registers, 0, copy.registers, 0, registers.length);
+        return copy;
+    }
+
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    public int getPrecision() { return precision; }
+    public int getSizeBytes() { return registers.length; }
+
+    /**
+     * Relative standard error of estimate()
+     */
+    public double getStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+}
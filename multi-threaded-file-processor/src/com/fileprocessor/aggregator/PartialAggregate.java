@@ -0,0 +1,159 @@
+package com.fileprocessor.aggregator;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Open-addressing map from group key to primitive aggregates
+ * (count, sum, min, max, optional distinct set). Not thread-safe:
+ * each worker thread owns one instance and partials are combined
+ * with mergeFrom once processing is complete.
+ */
+public class PartialAggregate {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private String[] keys;
+    private long[] counts;
+    private long[] sums;
+    private long[] mins;
+    private long[] maxs;
+    private Set<String>[] distincts;
+    private int size;
+    private long records;
+
+    public PartialAggregate() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        counts = new long[capacity];
+        sums = new long[capacity];
+        mins = new long[capacity];
+        maxs = new long[capacity];
+        distincts = new Set[capacity];
+    }
+
+    /**
+     * Fold one record into its group
+     */
+    public void accumulate(String key, long value, String distinctValue) {
+        int slot = slotFor(key);
+        counts[slot]++;
+        sums[slot] += value;
+        if (value < mins[slot]) mins[slot] = value;
+        if (value > maxs[slot]) maxs[slot] = value;
+        if (distinctValue != null) {
+            addDistinct(slot, distinctValue);
+        }
+        records++;
+    }
+
+    /**
+     * Combine another partial into this one
+     */
+    public void mergeFrom(PartialAggregate other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] == null) {
+                continue;
+            }
+            int slot = slotFor(other.keys[i]);
+            counts[slot] += other.counts[i];
+            sums[slot] += other.sums[i];
+            if (other.mins[i] < mins[slot]) mins[slot] = other.mins[i];
+            if (other.maxs[i] > maxs[slot]) maxs[slot] = other.maxs[i];
+            if (other.distincts[i] != null) {
+                for (String value : other.distincts[i]) {
+                    addDistinct(slot, value);
+                }
+            }
+        }
+        records += other.records;
+    }
+
+    private void addDistinct(int slot, String value) {
+        if (distincts[slot] == null) {
+            distincts[slot] = new HashSet<>();
+        }
+        distincts[slot].add(value);
+    }
+
+    private int slotFor(String key) {
+        int mask = keys.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            resize();
+            return slotFor(key);
+        }
+        keys[slot] = key;
+        mins[slot] = Long.MAX_VALUE;
+        maxs[slot] = Long.MIN_VALUE;
+        size++;
+        return slot;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldSums = sums;
+        long[] oldMins = mins;
+        long[] oldMaxs = maxs;
+        Set<String>[] oldDistincts = distincts;
+
+        allocate(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int slot = spread(oldKeys[i].hashCode()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            counts[slot] = oldCounts[i];
+            sums[slot] = oldSums[i];
+            mins[slot] = oldMins[i];
+            maxs[slot] = oldMaxs[i];
+            distincts[slot] = oldDistincts[i];
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Visit every group with its aggregated values
+     */
+    public void forEach(BiConsumer<String, GroupResult> consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                int distinct = distincts[i] == null ? 0 : distincts[i].size();
+                consumer.accept(keys[i], 
+                    new GroupResult(keys[i], counts[i], sums[i], mins[i], maxs[i], distinct));
+            }
+        }
+    }
+
+    public int getGroupCount() { return size; }
+    public long getRecordCount() { return records; }
+
+    /**
+     * Drop every group, shrinking back to the initial capacity
+     */
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+        records = 0;
+    }
+}
@@ -0,0 +1,93 @@
+package com.fileprocessor.aggregator;
+
+import com.fileprocessor.filereader.Chunk;
+import com.fileprocessor.model.ProcessedData;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reassembles chunk results in input order. Chunks complete in any order;
+ * each waits here until every chunk with a lower sequence number has been
+ * emitted, then its records stream to the sink in line order. Only the
+ * chunks completed ahead of the oldest unfinished one are held, so no
+ * global sort is needed.
+ *
+ * A chunk that finishes without results (failed, timed out or cancelled)
+ * must still be completed, or every later chunk stays buffered.
+ */
+public class ReorderBuffer {
+    private final Consumer<ProcessedData> sink;
+    private final Consumer<Chunk> onReleased;
+    private final Map<Long, Pending> pending = new HashMap<>();
+    private long nextSequence;
+    private int maxBuffered;
+    private long emittedRecords;
+
+    /**
+     * @param sink receives every record in input order
+     * @param onReleased receives each chunk once its records have been emitted
+     */
+    public ReorderBuffer(Consumer<ProcessedData> sink, Consumer<Chunk> onReleased) {
+        this.sink = sink;
+        this.onReleased = onReleased;
+    }
+
+    /**
+     * Hold the results of a successful chunk until complete() is called for it
+     */
+    public synchronized void add(Chunk chunk, List<ProcessedData> results) {
+        pending(chunk).results = results;
+    }
+
+    /**
+     * Mark the chunk finished and emit every chunk that is now next in order
+     */
+    public synchronized void complete(Chunk chunk) {
+        if (chunk.getSequence() < 0) {
+            throw new IllegalArgumentException("Chunk has no sequence number: " + chunk.getChunkId());
+        }
+        pending(chunk).completed = true;
+        maxBuffered = Math.max(maxBuffered, pending.size());
+
+        Pending next;
+        while ((next = pending.get(nextSequence)) != null && next.completed) {
+            pending.remove(nextSequence);
+            nextSequence++;
+            if (next.results != null) {
+                for (ProcessedData data : next.results) {
+                    sink.accept(data);
+                }
+                emittedRecords += next.results.size();
+            }
+            onReleased.accept(next.chunk);
+        }
+    }
+
+    private Pending pending(Chunk chunk) {
+        return pending.computeIfAbsent(chunk.getSequence(), sequence -> new Pending(chunk));
+    }
+
+    public synchronized int getBufferedChunks() { return pending.size(); }
+    public synchronized int getMaxBufferedChunks() { return maxBuffered; }
+    public synchronized long getEmittedRecords() { return emittedRecords; }
+    public synchronized long getNextSequence() { return nextSequence; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ReorderBuffer[Emitted: %d records, Next chunk: %d, Buffered: %d, Max buffered: %d]",
+                             emittedRecords, nextSequence, pending.size(), maxBuffered);
+    }
+
+    private static class Pending {
+        final Chunk chunk;
+        List<ProcessedData> results;
+        boolean completed;
+
+        Pending(Chunk chunk) {
+            this.chunk = chunk;
+        }
+    }
+}
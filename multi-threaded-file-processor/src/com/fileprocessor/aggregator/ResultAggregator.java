@@ -3,12 +3,17 @@ package com.fileprocessor.aggregator;
 import com.fileprocessor.model.ProcessedData;
 import com.fileprocessor.model.ProcessingStats;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class ResultAggregator {
     private final List<ProcessedData> allResults;
@@ -16,31 +21,106 @@ public class ResultAggregator {
     private final boolean removeDuplicates;
     private final boolean sortData;
     private final AtomicInteger processedTasks;
+    private final long memoryLimitBytes;
+    private final File spillDirectory;
+    private final List<SpillFile> spillFiles = new ArrayList<>();
+    // One ID sketch per thread that sketched results, unioned when stats are read
+    private final Queue<HyperLogLog> idSketches = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<HyperLogLog> localSketch = ThreadLocal.withInitial(() -> {
+        HyperLogLog sketch = new HyperLogLog();
+        idSketches.add(sketch);
+        return sketch;
+    });
+    private long inMemoryBytes;
+    private long spilledRecords;
 
     public ResultAggregator(ProcessingStats stats, boolean removeDuplicates, boolean sortData) {
-        this.allResults = new CopyOnWriteArrayList<>();
+        this(stats, removeDuplicates, sortData, 0, null);
+    }
+
+    /**
+     * @param memoryLimitBytes estimated heap the in-memory results may use
+     *                         before they are spilled; 0 disables spilling
+     * @param spillDirectory   where sorted runs are written when spilling
+     */
+    public ResultAggregator(ProcessingStats stats, boolean removeDuplicates, boolean sortData,
+                           long memoryLimitBytes, File spillDirectory) {
+        this.allResults = new ArrayList<>();
         this.stats = stats;
         this.removeDuplicates = removeDuplicates;
         this.sortData = sortData;
         this.processedTasks = new AtomicInteger(0);
+        this.memoryLimitBytes = memoryLimitBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Merge results from multiple processing tasks, sketching their IDs on
+     * the calling thread first
+     */
+    public void mergeResults(List<ProcessedData> newResults) {
+        if (newResults == null || newResults.isEmpty()) {
+            return;
+        }
+        sketchIds(newResults);
+        mergeSketched(newResults);
     }
 
     /**
-     * Merge results from multiple processing tasks
+     * Add the IDs to the calling thread's sketch. Worker threads call this
+     * for their own results so hashing runs in parallel instead of inside
+     * the serial merge.
      */
-    public synchronized void mergeResults(List<ProcessedData> newResults) {
+    public void sketchIds(List<ProcessedData> results) {
+        HyperLogLog sketch = localSketch.get();
+        for (ProcessedData data : results) {
+            sketch.add(data.getId());
+        }
+    }
+
+    /**
+     * Merge results whose IDs were already passed to sketchIds
+     */
+    public synchronized void mergeSketched(List<ProcessedData> newResults) {
         if (newResults == null || newResults.isEmpty()) {
             return;
         }
 
         allResults.addAll(newResults);
         processedTasks.incrementAndGet();
+        if (memoryLimitBytes > 0) {
+            for (ProcessedData data : newResults) {
+                inMemoryBytes += data.estimateBytes();
+            }
+            if (inMemoryBytes > memoryLimitBytes) {
+                spill();
+            }
+        }
         
         System.out.println("Aggregated " + newResults.size() + " records. " +
-                         "Total: " + allResults.size() + " records from " + 
+                         "Total: " + getTotalRecords() + " records from " + 
                          processedTasks.get() + " tasks");
     }
 
+    /**
+     * Sort the in-memory results by ID and write them out as one run
+     */
+    private void spill() {
+        if (allResults.isEmpty()) {
+            return;
+        }
+        Collections.sort(allResults);
+        SpillFile run = SpillFile.write(allResults, spillDirectory);
+        spillFiles.add(run);
+        spilledRecords += allResults.size();
+        
+        System.out.println("Spilled " + allResults.size() + " records (" + run.getSizeBytes() + 
+                         " bytes) to " + run.getFile().getName());
+        
+        allResults.clear();
+        inMemoryBytes = 0;
+    }
+
     /**
      * Remove duplicate entries based on data ID
      */
@@ -82,7 +162,14 @@ public class ResultAggregator {
     /**
      * Get final aggregated results after applying all processing
      */
-    public List<ProcessedData> getFinalResults() {
+    public synchronized List<ProcessedData> getFinalResults() {
+        if (!spillFiles.isEmpty()) {
+            // Materializes everything; prefer forEachFinalResult once spilled
+            List<ProcessedData> merged = new ArrayList<>();
+            forEachFinalResult(merged::add);
+            return merged;
+        }
+        
         List<ProcessedData> finalResults = new ArrayList<>(allResults);
         
         if (removeDuplicates) {
@@ -97,27 +184,148 @@ public class ResultAggregator {
     }
 
     /**
-     * Get aggregation statistics
+     * Stream final results without materializing them. Once results have been
+     * spilled, the sorted runs and the in-memory remainder are k-way merged by
+     * ID; duplicates are then adjacent and dropped on the fly.
      */
-    public AggregationStats getAggregationStats() {
-        return new AggregationStats(
-            allResults.size(),
-            processedTasks.get(),
-            removeDuplicates ? removeDuplicates(allResults).size() : allResults.size()
-        );
+    public synchronized void forEachFinalResult(Consumer<ProcessedData> consumer) {
+        if (spillFiles.isEmpty()) {
+            getFinalResults().forEach(consumer);
+            return;
+        }
+
+        List<ProcessedData> remainder = new ArrayList<>(allResults);
+        Collections.sort(remainder);
+        List<Iterator<ProcessedData>> sources = new ArrayList<>();
+        List<SpillFile.RunReader> readers = new ArrayList<>();
+        try {
+            for (SpillFile run : spillFiles) {
+                SpillFile.RunReader reader = run.open();
+                readers.add(reader);
+                sources.add(reader);
+            }
+            sources.add(remainder.iterator());
+            mergeRuns(sources, consumer);
+        } finally {
+            readers.forEach(SpillFile.RunReader::close);
+        }
     }
 
-    public int getTotalRecords() {
-        return allResults.size();
+    private void mergeRuns(List<Iterator<ProcessedData>> sources, Consumer<ProcessedData> consumer) {
+        PriorityQueue<RunHead> heads = new PriorityQueue<>();
+        for (Iterator<ProcessedData> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new RunHead(source.next(), source));
+            }
+        }
+        String lastId = null;
+        while (!heads.isEmpty()) {
+            RunHead head = heads.poll();
+            if (!removeDuplicates || !head.data.getId().equals(lastId)) {
+                consumer.accept(head.data);
+                lastId = head.data.getId();
+            }
+            if (head.source.hasNext()) {
+                heads.add(new RunHead(head.source.next(), head.source));
+            }
+        }
+    }
+
+    /**
+     * Get aggregation statistics, estimating the unique count from the ID
+     * sketch instead of scanning the results
+     */
+    public synchronized AggregationStats getAggregationStats() {
+        return getAggregationStats(false);
+    }
+
+    /**
+     * @param exact count unique records by deduplicating every result (and
+     *              reading back every spill file) rather than estimating
+     */
+    public synchronized AggregationStats getAggregationStats(boolean exact) {
+        int total = getTotalRecords();
+        int unique;
+        if (!removeDuplicates) {
+            unique = total;
+        } else if (!exact) {
+            unique = (int) Math.min(total, getIdSketch().estimate());
+            return new AggregationStats(total, processedTasks.get(), unique, true);
+        } else if (spillFiles.isEmpty()) {
+            unique = removeDuplicates(allResults).size();
+        } else {
+            int[] counter = new int[1];
+            forEachFinalResult(data -> counter[0]++);
+            unique = counter[0];
+        }
+        return new AggregationStats(total, processedTasks.get(), unique);
+    }
+
+    public synchronized int getTotalRecords() {
+        return (int) (allResults.size() + spilledRecords);
+    }
+
+    public synchronized int getSpillCount() {
+        return spillFiles.size();
     }
 
     public int getProcessedTasks() {
         return processedTasks.get();
     }
 
-    public void clear() {
+    /**
+     * Union of the threads' sketches of every ID merged so far, for
+     * combining with the sketches of other aggregators. Only call once all
+     * tasks have completed.
+     */
+    public HyperLogLog getIdSketch() {
+        HyperLogLog union = new HyperLogLog();
+        for (HyperLogLog sketch : idSketches) {
+            union.merge(sketch);
+        }
+        return union;
+    }
+
+    /**
+     * Delete the sorted runs and, if it is left empty, the spill directory.
+     * Call once the output is written or the run has failed; the record
+     * counts are kept, but the spilled records can no longer be read.
+     */
+    public synchronized void deleteSpillFiles() {
+        if (spillFiles.isEmpty()) {
+            return;
+        }
+        spillFiles.forEach(SpillFile::delete);
+        spillFiles.clear();
+        spillDirectory.delete();
+    }
+
+    public synchronized void clear() {
         allResults.clear();
         processedTasks.set(0);
+        spillFiles.forEach(SpillFile::delete);
+        spillFiles.clear();
+        spilledRecords = 0;
+        inMemoryBytes = 0;
+        idSketches.forEach(HyperLogLog::clear);
+    }
+
+    /**
+     * Current head record of one sorted run during a k-way merge
+     */
+    private static class RunHead implements Comparable<RunHead> {
+        private final ProcessedData data;
+        private final Iterator<ProcessedData> source;
+
+        RunHead(ProcessedData data, Iterator<ProcessedData> source) {
+            this.data = data;
+            this.source = source;
+        }
+
+        @Override
+        public int compareTo(RunHead other) {
+            return data.compareTo(other.data);
+        }
     }
 
     /**
@@ -127,23 +335,34 @@ public class ResultAggregator {
         private final int totalRecords;
         private final int processedTasks;
         private final int uniqueRecords;
+        private final boolean estimated;
 
         public AggregationStats(int totalRecords, int processedTasks, int uniqueRecords) {
+            this(totalRecords, processedTasks, uniqueRecords, false);
+        }
+
+        /**
+         * @param estimated uniqueRecords comes from a sketch and is approximate
+         */
+        public AggregationStats(int totalRecords, int processedTasks, int uniqueRecords, boolean estimated) {
             this.totalRecords = totalRecords;
             this.processedTasks = processedTasks;
             this.uniqueRecords = uniqueRecords;
+            this.estimated = estimated;
         }
 
         public int getTotalRecords() { return totalRecords; }
         public int getProcessedTasks() { return processedTasks; }
         public int getUniqueRecords() { return uniqueRecords; }
         public int getDuplicateCount() { return totalRecords - uniqueRecords; }
+        public boolean isEstimated() { return estimated; }
 
         @Override
         public String toString() {
             return String.format(
-                "AggregationStats{totalRecords=%d, processedTasks=%d, uniqueRecords=%d, duplicates=%d}",
-                totalRecords, processedTasks, uniqueRecords, getDuplicateCount());
+                "AggregationStats{totalRecords=%d, processedTasks=%d, uniqueRecords=%s%d, duplicates=%s%d}",
+                totalRecords, processedTasks, estimated ? "~" : "", uniqueRecords, 
+                estimated ? "~" : "", getDuplicateCount());
         }
     }
 }
@@ -0,0 +1,117 @@
+package com.fileprocessor.aggregator;
+
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.model.RecordCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted run of ProcessedData written by the aggregator when it exceeds its
+ * memory share. Layout: record count, then per record the length-prefixed
+ * UTF-8 id, length-prefixed UTF-8 content and the timestamp.
+ */
+public class SpillFile {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final long recordCount;
+
+    private SpillFile(File file, long recordCount) {
+        this.file = file;
+        this.recordCount = recordCount;
+    }
+
+    /**
+     * Write an already sorted run to a new file in the spill directory
+     */
+    public static SpillFile write(List<ProcessedData> sortedRun, File directory) {
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Cannot create spill directory " + directory);
+            }
+            File file = File.createTempFile("spill-", ".run", directory);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+                out.writeLong(sortedRun.size());
+                for (ProcessedData data : sortedRun) {
+                    RecordCodec.writeRecord(out, data);
+                }
+            }
+            return new SpillFile(file, sortedRun.size());
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to spill aggregated results", e);
+        }
+    }
+
+    /**
+     * Open a sequential reader over the run
+     */
+    public RunReader open() {
+        try {
+            return new RunReader(new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)));
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to open spill file: " + file, e);
+        }
+    }
+
+    public void delete() {
+        file.delete();
+    }
+
+    public File getFile() { return file; }
+    public long getRecordCount() { return recordCount; }
+    public long getSizeBytes() { return file.length(); }
+
+    /**
+     * Streaming iterator over the records of one run
+     */
+    public static class RunReader implements Iterator<ProcessedData>, Closeable {
+        private final DataInputStream in;
+        private long remaining;
+
+        private RunReader(DataInputStream in) throws IOException {
+            this.in = in;
+            this.remaining = in.readLong();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public ProcessedData next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            try {
+                remaining--;
+                return RecordCodec.readRecord(in);
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to read spill file", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Nothing useful to do on close failure of a temp file
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.fileprocessor.aggregator;
+
+import com.fileprocessor.exception.MalformedLineException;
+
+/**
+ * Extracts a numeric value from a raw input line for sum/min/max aggregation
+ */
+@FunctionalInterface
+public interface ValueExtractor {
+    long extract(String line, int lineNumber, String sourceFile);
+    
+    ValueExtractor ONE = (line, lineNumber, sourceFile) -> 1L;
+    
+    /**
+     * Parse the field at the given zero-based index of a delimited line
+     * without allocating a substring. A missing or non-numeric field throws
+     * MalformedLineException, which builds no stack trace.
+     */
+    static ValueExtractor delimited(char delimiter, int index) {
+        return (line, lineNumber, sourceFile) -> {
+            int start = FieldExtractor.fieldStart(line, delimiter, index);
+            if (start < 0) {
+                throw new MalformedLineException("Missing field " + index + " at line " + lineNumber);
+            }
+            int end = FieldExtractor.fieldEnd(line, delimiter, start);
+            while (start < end && line.charAt(start) == ' ') start++;
+            while (end > start && line.charAt(end - 1) == ' ') end--;
+            return parseLong(line, start, end, index);
+        };
+    }
+    
+    /**
+     * Long.parseLong over a range of the line, failing with the stackless
+     * MalformedLineException instead of NumberFormatException
+     */
+    private static long parseLong(String s, int start, int end, int index) {
+        int i = start;
+        boolean negative = i < end && s.charAt(i) == '-';
+        if (i < end && (negative || s.charAt(i) == '+')) {
+            i++;
+        }
+        if (i == end) {
+            throw notANumber(s, start, end, index);
+        }
+        // accumulate negatively so Long.MIN_VALUE parses without overflow
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10) {
+                throw notANumber(s, start, end, index);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw notANumber(s, start, end, index);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+    
+    private static MalformedLineException notANumber(String s, int start, int end, int index) {
+        return new MalformedLineException("Field " + index + " is not a number: \"" + 
+                                          s.substring(start, end) + "\"");
+    }
+}
@@ -0,0 +1,328 @@
+package com.fileprocessor.benchmark;
+
+import com.fileprocessor.config.ProcessorConfig;
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.manager.ProcessingPipeline;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end throughput harness. Runs ProcessingPipeline over a corpus for
+ * every combination of CPU threads, chunk size and I/O reader threads,
+ * each run in a fresh JVM so that JIT state, heap and resident set size do
+ * not carry over between runs. Results are written as TSV, one row per
+ * combination with the median run, and can be compared against a
+ * baseline results file to flag throughput regressions.
+ *
+ * Usage: ThroughputHarness input workDir [key=value ...]
+ *
+ * input is a directory of input files, or generate:MB to generate a corpus
+ * with WorkloadGenerator defaults under workDir. Keys: threads, chunkSizes,
+ * ioThreads (comma-separated lists), runs, results, baseline, threshold.
+ * Exits with status 2 when a regression is found.
+ */
+public class ThroughputHarness {
+    private static final String RESULT_PREFIX = "HARNESS-RESULT\t";
+    private static final String[] COLUMNS = {
+        "threads", "chunkSize", "ioThreads", "runs", "elapsedMs", "lines", "bytes",
+        "linesPerSec", "mbPerSec", "peakRssMb", "gcMs"
+    };
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--run")) {
+            runOnce(args);
+            return;
+        }
+        if (args.length < 2) {
+            System.err.println("Usage: ThroughputHarness input workDir [threads=1,2,4] [chunkSizes=1000] " +
+                             "[ioThreads=1] [runs=3] [results=file] [baseline=file] [threshold=0.1]");
+            System.exit(1);
+        }
+        Map<String, String> options = new HashMap<>();
+        for (int i = 2; i < args.length; i++) {
+            int eq = args[i].indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value: " + args[i]);
+            }
+            options.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+        }
+
+        File workDir = new File(args[1]);
+        File inputDir = prepareInput(args[0], workDir);
+        long[] corpus = measureCorpus(inputDir);
+        System.out.println("Corpus: " + corpus[0] + " lines, " + corpus[1] + " bytes in " + inputDir);
+
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (int threads : parseList(options.getOrDefault("threads", "1,2,4"))) {
+            for (int chunkSize : parseList(options.getOrDefault("chunkSizes", "1000"))) {
+                for (int ioThreads : parseList(options.getOrDefault("ioThreads", "1"))) {
+                    Map<String, String> row = measure(inputDir, new File(workDir, "output"),
+                                                      threads, chunkSize, ioThreads, runs, corpus);
+                    rows.add(row);
+                    System.out.printf("threads=%d chunkSize=%d ioThreads=%d: %s lines/s, %s MB/s, " +
+                                      "peak RSS %s MB, GC %s ms%n", threads, chunkSize, ioThreads,
+                                      row.get("linesPerSec"), row.get("mbPerSec"),
+                                      row.get("peakRssMb"), row.get("gcMs"));
+                }
+            }
+        }
+
+        File resultsFile = new File(options.getOrDefault("results",
+                                    new File(workDir, "throughput.tsv").getPath()));
+        writeResults(rows, resultsFile);
+        System.out.println("Results written to " + resultsFile);
+
+        if (options.containsKey("baseline")) {
+            double threshold = Double.parseDouble(options.getOrDefault("threshold", "0.1"));
+            int regressions = compareToBaseline(rows, new File(options.get("baseline")), threshold);
+            if (regressions > 0) {
+                System.exit(2);
+            }
+        }
+    }
+
+    private static File prepareInput(String input, File workDir) {
+        if (!input.startsWith("generate:")) {
+            return new File(input);
+        }
+        File inputDir = new File(workDir, "input");
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.setTotalBytes(Long.parseLong(input.substring("generate:".length())) * 1024 * 1024);
+        generator.generate(inputDir);
+        return inputDir;
+    }
+
+    /**
+     * @return line count and byte count of the files the pipeline will read
+     */
+    private static long[] measureCorpus(File inputDir) throws IOException {
+        long lines = 0;
+        long bytes = 0;
+        String pattern = new ProcessorConfig().getFilePattern();
+        File[] files = inputDir.listFiles(file -> file.isFile() && file.getName().matches(pattern));
+        if (files == null) {
+            throw new FileProcessingException("Input directory does not exist: " + inputDir);
+        }
+        byte[] buffer = new byte[256 * 1024];
+        for (File file : files) {
+            bytes += file.length();
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                int read;
+                byte last = '\n';
+                while ((read = in.read(buffer)) > 0) {
+                    for (int i = 0; i < read; i++) {
+                        if (buffer[i] == '\n') {
+                            lines++;
+                        }
+                    }
+                    last = buffer[read - 1];
+                }
+                if (last != '\n') {
+                    lines++; // unterminated last line
+                }
+            }
+        }
+        return new long[] {lines, bytes};
+    }
+
+    /**
+     * Run one combination several times in child JVMs and report the run
+     * with the median elapsed time
+     */
+    private static Map<String, String> measure(File inputDir, File outputDir, int threads, int chunkSize,
+                                               int ioThreads, int runs, long[] corpus) throws Exception {
+        List<long[]> samples = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            samples.add(runChild(inputDir, outputDir, threads, chunkSize, ioThreads));
+        }
+        samples.sort(Comparator.comparingLong(sample -> sample[0]));
+        long[] median = samples.get(samples.size() / 2);
+        double seconds = Math.max(median[0], 1) / 1000.0;
+
+        Map<String, String> row = new HashMap<>();
+        row.put("threads", String.valueOf(threads));
+        row.put("chunkSize", String.valueOf(chunkSize));
+        row.put("ioThreads", String.valueOf(ioThreads));
+        row.put("runs", String.valueOf(runs));
+        row.put("elapsedMs", String.valueOf(median[0]));
+        row.put("lines", String.valueOf(corpus[0]));
+        row.put("bytes", String.valueOf(corpus[1]));
+        row.put("linesPerSec", String.format("%.0f", corpus[0] / seconds));
+        row.put("mbPerSec", String.format("%.2f", corpus[1] / seconds / (1024 * 1024)));
+        row.put("peakRssMb", median[2] < 0 ? "-1" : String.format("%.1f", median[2] / (1024.0 * 1024)));
+        row.put("gcMs", String.valueOf(median[1]));
+        return row;
+    }
+
+    /**
+     * @return elapsed millis, GC millis and peak RSS bytes (-1 if unknown)
+     */
+    private static long[] runChild(File inputDir, File outputDir, int threads, int chunkSize,
+                                   int ioThreads) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        // pass on heap and GC settings so children run like the parent was configured
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("-Xm") || argument.startsWith("-XX:")) {
+                command.add(argument);
+            }
+        }
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+            ThroughputHarness.class.getName(), "--run", inputDir.getPath(), outputDir.getPath(),
+            String.valueOf(threads), String.valueOf(chunkSize), String.valueOf(ioThreads)));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        try (BufferedReader output = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = line.substring(RESULT_PREFIX.length());
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || result == null) {
+            throw new FileProcessingException("Benchmark run failed with exit code " + exitCode +
+                                              " (threads=" + threads + ", chunkSize=" + chunkSize +
+                                              ", ioThreads=" + ioThreads + ")");
+        }
+        return Arrays.stream(result.split("\t")).mapToLong(Long::parseLong).toArray();
+    }
+
+    /**
+     * Child side: one pipeline run, reported as a single result line
+     */
+    private static void runOnce(String[] args) throws IOException {
+        ProcessorConfig config = new ProcessorConfig(Integer.parseInt(args[4]), Integer.parseInt(args[3]),
+                                                     args[1], args[2]);
+        config.setIoThreads(Integer.parseInt(args[5]));
+        deleteRecursively(Paths.get(args[2]));
+
+        long start = System.nanoTime();
+        new ProcessingPipeline(config).execute();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcMillis += Math.max(0, gc.getCollectionTime());
+        }
+        System.out.println(RESULT_PREFIX + elapsedMillis + "\t" + gcMillis + "\t" + peakRssBytes());
+    }
+
+    /**
+     * High-water mark of the resident set from /proc, or -1 where that is
+     * not available
+     */
+    private static long peakRssBytes() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmHWM:"))
+                .map(line -> line.replaceAll("[^0-9]", ""))
+                .mapToLong(kilobytes -> Long.parseLong(kilobytes) * 1024)
+                .findFirst().orElse(-1);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void writeResults(List<Map<String, String>> rows, File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            out.println(String.join("\t", COLUMNS));
+            for (Map<String, String> row : rows) {
+                List<String> values = new ArrayList<>();
+                for (String column : COLUMNS) {
+                    values.add(row.get(column));
+                }
+                out.println(String.join("\t", values));
+            }
+        }
+    }
+
+    /**
+     * Flag combinations whose lines/sec fell more than the threshold below
+     * the baseline's. Combinations missing from the baseline are skipped.
+     *
+     * @return number of regressions
+     */
+    private static int compareToBaseline(List<Map<String, String>> rows, File baselineFile,
+                                         double threshold) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        List<String> lines = Files.readAllLines(baselineFile.toPath(), StandardCharsets.UTF_8);
+        List<String> header = Arrays.asList(lines.get(0).split("\t"));
+        for (String line : lines.subList(1, lines.size())) {
+            String[] values = line.split("\t");
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.size() && i < values.length; i++) {
+                row.put(header.get(i), values[i]);
+            }
+            baseline.put(key(row), Double.parseDouble(row.get("linesPerSec")));
+        }
+
+        int regressions = 0;
+        for (Map<String, String> row : rows) {
+            Double expected = baseline.get(key(row));
+            if (expected == null) {
+                continue;
+            }
+            double actual = Double.parseDouble(row.get("linesPerSec"));
+            double change = (actual - expected) / expected;
+            boolean regressed = change < -threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%s %s: %.0f lines/s vs baseline %.0f (%+.1f%%)%n",
+                regressed ? "REGRESSION" : "ok", key(row), actual, expected, change * 100);
+        }
+        System.out.println(regressions + " regression(s) beyond " + Math.round(threshold * 100) +
+                         "% against " + baselineFile);
+        return regressions;
+    }
+
+    private static String key(Map<String, String> row) {
+        return "threads=" + row.get("threads") + ",chunkSize=" + row.get("chunkSize") +
+               ",ioThreads=" + row.get("ioThreads");
+    }
+
+    private static int[] parseList(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,84 @@
+package com.fileprocessor.benchmark;
+
+import com.fileprocessor.dataprocessor.Transformation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the String-based built-in transformations with their ASCII
+ * variants on generated log-like lines of typical lengths.
+ *
+ * Usage: TransformationBenchmark [lines] [rounds]
+ */
+public class TransformationBenchmark {
+    private static final int[] LINE_LENGTHS = {40, 120, 400};
+
+    public static void main(String[] args) {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        for (int length : LINE_LENGTHS) {
+            List<String> lines = generateLines(lineCount, length);
+            System.out.println("Line length " + length + ":");
+            compare("UPPERCASE", Transformation.UPPERCASE, Transformation.ASCII_UPPERCASE, lines, rounds);
+            compare("LOWERCASE", Transformation.LOWERCASE, Transformation.ASCII_LOWERCASE, lines, rounds);
+            compare("TRIM", Transformation.TRIM, Transformation.ASCII_TRIM, lines, rounds);
+        }
+    }
+
+    private static void compare(String name, Transformation baseline, Transformation ascii,
+                                List<String> lines, int rounds) {
+        for (String line : lines) {
+            if (!baseline.apply(line, 0, "").equals(ascii.apply(line, 0, ""))) {
+                throw new IllegalStateException(name + " variants disagree on: " + line);
+            }
+        }
+        long baselineNanos = time(baseline, lines, rounds);
+        long asciiNanos = time(ascii, lines, rounds);
+        System.out.printf("  %-10s String %7.1f ns/line, ASCII %7.1f ns/line, speedup %.2fx%n",
+            name, (double) baselineNanos / lines.size(), (double) asciiNanos / lines.size(),
+            (double) baselineNanos / asciiNanos);
+    }
+
+    /**
+     * Best round after warm-up, in nanoseconds for the whole list
+     */
+    private static long time(Transformation transformation, List<String> lines, int rounds) {
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < rounds + 3; round++) {
+            long start = System.nanoTime();
+            for (String line : lines) {
+                sink += transformation.apply(line, 0, "").length();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round >= 3) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        if (sink == 42) {
+            System.out.print(""); // keep the results observable
+        }
+        return best;
+    }
+
+    private static List<String> generateLines(int count, int length) {
+        Random random = new Random(length);
+        String alphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 :-_/.=";
+        List<String> lines = new ArrayList<>(count);
+        StringBuilder sb = new StringBuilder(length + 2);
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            if (i % 4 == 0) {
+                sb.append("  ");
+            }
+            while (sb.length() < length) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            lines.add(sb.toString());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,208 @@
+package com.fileprocessor.benchmark;
+
+import com.fileprocessor.exception.FileProcessingException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic input corpora. The same settings
+ * and seed always produce byte-identical files, so throughput numbers from
+ * different machines or commits are comparable.
+ *
+ * Usage: WorkloadGenerator outputDir [totalMB] [files] [formats] [sizeSkew] [duplicateRatio] [seed]
+ */
+public class WorkloadGenerator {
+    private static final int DUPLICATE_POOL_SIZE = 4096;
+    private static final String[] WORDS = {
+        "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel",
+        "india", "juliet", "kilo", "lima", "mike", "november", "oscar", "papa",
+        "request", "response", "timeout", "retry", "user", "session", "error", "warning"
+    };
+
+    /**
+     * How line lengths vary around the mean
+     */
+    public enum LineLengths { FIXED, UNIFORM, LOG_NORMAL }
+
+    private long totalBytes = 64L * 1024 * 1024;
+    private int fileCount = 16;
+    private String[] formats = {"txt", "csv", "json"}; // assigned to files round-robin
+    private int meanLineLength = 100; // characters, excluding the line terminator
+    private LineLengths lineLengths = LineLengths.LOG_NORMAL;
+    private double duplicateRatio = 0.1; // fraction of lines repeating an earlier line
+    private double sizeSkew = 0.0; // 0 gives equal files; file i gets weight 1/(i+1)^skew
+    private long seed = 42;
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: WorkloadGenerator outputDir [totalMB] [files] [formats] " +
+                             "[sizeSkew] [duplicateRatio] [seed]");
+            System.exit(1);
+        }
+        WorkloadGenerator generator = new WorkloadGenerator();
+        if (args.length > 1) generator.setTotalBytes(Long.parseLong(args[1]) * 1024 * 1024);
+        if (args.length > 2) generator.setFileCount(Integer.parseInt(args[2]));
+        if (args.length > 3) generator.setFormats(args[3].split(","));
+        if (args.length > 4) generator.setSizeSkew(Double.parseDouble(args[4]));
+        if (args.length > 5) generator.setDuplicateRatio(Double.parseDouble(args[5]));
+        if (args.length > 6) generator.setSeed(Long.parseLong(args[6]));
+        long written = generator.generate(new File(args[0]));
+        System.out.println("Generated " + generator.getFileCount() + " files, " + written +
+                         " bytes in " + args[0]);
+    }
+
+    /**
+     * Write the corpus into the directory, replacing files of the same names
+     *
+     * @return bytes written
+     */
+    public long generate(File directory) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new FileProcessingException("Failed to create workload directory: " + directory);
+        }
+        double[] weights = new double[fileCount];
+        double weightSum = 0;
+        for (int i = 0; i < fileCount; i++) {
+            weights[i] = 1.0 / Math.pow(i + 1, sizeSkew);
+            weightSum += weights[i];
+        }
+        long written = 0;
+        for (int i = 0; i < fileCount; i++) {
+            String format = formats[i % formats.length];
+            File file = new File(directory, String.format("workload-%04d.%s", i, format));
+            long target = Math.max(1, Math.round(totalBytes * weights[i] / weightSum));
+            written += writeFile(file, format, target, new Random(seed * 1_000_003L + i));
+        }
+        return written;
+    }
+
+    private long writeFile(File file, String format, long targetBytes, Random random) {
+        String[] pool = new String[DUPLICATE_POOL_SIZE];
+        int pooled = 0;
+        long written = 0;
+        long lineNumber = 0;
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8), 256 * 1024)) {
+            if (format.equals("csv")) {
+                String header = "id,level,user,latency_ms,message";
+                writer.write(header);
+                writer.newLine();
+                written += header.length() + 1;
+            }
+            while (written < targetBytes) {
+                String line;
+                if (pooled > 0 && random.nextDouble() < duplicateRatio) {
+                    line = pool[random.nextInt(pooled)];
+                } else {
+                    line = formatLine(format, lineNumber, nextLineLength(random), random);
+                    if (pooled < pool.length) {
+                        pool[pooled++] = line;
+                    } else {
+                        pool[random.nextInt(pool.length)] = line;
+                    }
+                }
+                writer.write(line);
+                writer.newLine();
+                written += line.length() + 1; // generated text is ASCII
+                lineNumber++;
+            }
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write workload file: " + file, e);
+        }
+        return written;
+    }
+
+    private int nextLineLength(Random random) {
+        switch (lineLengths) {
+            case FIXED:
+                return meanLineLength;
+            case UNIFORM:
+                return meanLineLength / 2 + random.nextInt(meanLineLength + 1);
+            default:
+                // sigma 0.5 gives a long tail of occasional lines several times the mean
+                double sigma = 0.5;
+                double mu = Math.log(meanLineLength) - sigma * sigma / 2;
+                return (int) Math.min(meanLineLength * 20L, Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+        }
+    }
+
+    private static String formatLine(String format, long lineNumber, int length, Random random) {
+        String level = random.nextInt(10) == 0 ? "ERROR" : random.nextInt(4) == 0 ? "WARN" : "INFO";
+        String user = "user" + random.nextInt(10_000);
+        int latency = random.nextInt(2000);
+        StringBuilder line = new StringBuilder(length + 64);
+        switch (format) {
+            case "csv":
+                line.append(lineNumber).append(',').append(level).append(',').append(user)
+                    .append(',').append(latency).append(',');
+                appendWords(line, length, random);
+                break;
+            case "json":
+                line.append("{\"id\":").append(lineNumber).append(",\"level\":\"").append(level)
+                    .append("\",\"user\":\"").append(user).append("\",\"latencyMs\":").append(latency)
+                    .append(",\"message\":\"");
+                appendWords(line, length - 2, random);
+                line.append("\"}");
+                break;
+            default:
+                line.append(level).append(' ').append(user).append(' ').append(latency).append("ms ");
+                appendWords(line, length, random);
+        }
+        return line.toString();
+    }
+
+    private static void appendWords(StringBuilder line, int length, Random random) {
+        // always at least one word, even when the prefix already fills the line
+        line.append(WORDS[random.nextInt(WORDS.length)]);
+        while (line.length() < length) {
+            line.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+    }
+
+    // Getters and Setters
+    public long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public int getFileCount() { return fileCount; }
+    public void setFileCount(int fileCount) {
+        this.fileCount = fileCount;
+    }
+
+    public String[] getFormats() { return formats; }
+    public void setFormats(String[] formats) {
+        this.formats = formats;
+    }
+
+    public int getMeanLineLength() { return meanLineLength; }
+    public void setMeanLineLength(int meanLineLength) {
+        this.meanLineLength = meanLineLength;
+    }
+
+    public LineLengths getLineLengths() { return lineLengths; }
+    public void setLineLengths(LineLengths lineLengths) {
+        this.lineLengths = lineLengths;
+    }
+
+    public double getDuplicateRatio() { return duplicateRatio; }
+    public void setDuplicateRatio(double duplicateRatio) {
+        this.duplicateRatio = duplicateRatio;
+    }
+
+    public double getSizeSkew() { return sizeSkew; }
+    public void setSizeSkew(double sizeSkew) {
+        this.sizeSkew = sizeSkew;
+    }
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
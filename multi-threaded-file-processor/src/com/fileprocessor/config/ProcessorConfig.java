@@ -8,6 +8,47 @@ public class ProcessorConfig {
     private String filePattern = ".*\\.(txt|csv|json)$";
     private boolean removeDuplicates = true;
     private boolean sortOutput = true;
+    private long memoryBudgetBytes = Runtime.getRuntime().maxMemory() / 2;
+    private double aggregatorMemoryShare = 0.5; // fraction of the budget kept by the aggregator
+    private boolean speculativeExecution = true;
+    private double speculationMultiplier = 4.0; // x median chunk latency
+    private long speculationMinMillis = 500;
+    private long chunkTimeoutMillis = 5 * 60 * 1000L;
+    private int outputPartitions = 0; // 0 writes a single results file
+    private int partitionBufferSize = 1024; // records per worker buffer per partition
+    private String resultCacheDirectory = null; // null disables the result cache
+    private long resultCacheMaxBytes = 1024L * 1024 * 1024;
+    private String transformationIdentity = null; // must change whenever the transformation does
+    private boolean recursiveDiscovery = false; // descend into subdirectories of the input directory
+    private int discoveryParallelism = Runtime.getRuntime().availableProcessors();
+    private boolean coalesceSmallFiles = false; // pack small files into shared multi-file chunks
+    private boolean largestFirst = false; // read files longest processing time first
+    private int ioThreads = 1; // concurrent file readers in the I/O stage
+    private int handoffQueueCapacity = 16; // chunks buffered between the I/O and CPU stages
+    private int readBufferSize = 1024 * 1024; // bytes per read-ahead buffer
+    private int readAheadBuffers = 2; // buffers in each reader's read-ahead ring
+    private boolean dedupIndexEnabled = false; // drop records already emitted by earlier runs
+    private int dedupIndexShards = 16;
+    private int dedupIndexInitialCapacity = 1 << 16; // slots per shard for a new index
+    private boolean sortedTableOutput = false; // also write an indexed results.sst for lookups by ID
+    private int sortedTableBlockSize = 64 * 1024; // bytes per data block in results.sst
+    private int bloomBitsPerKey = 10; // 0 disables the results.sst Bloom filter
+    private int jobWeight = 1; // share of a FairScheduler's workers relative to other jobs
+    private boolean orderedOutput = false; // emit results in input order (file name, then line) without sorting
+    private boolean exactAggregationStats = false; // count unique records exactly instead of estimating them
+    private boolean deadLetterOutput = true; // write lines that fail to process to dead-letters.tsv
+    private int deadLetterBatchSize = 512; // failed lines each worker buffers per write
+    private boolean compressOutput = false; // gzip result files, compressing blocks in parallel
+    private int compressionLevel = 6; // Deflater level, 0 to 9
+    private int compressionBlockSize = 1024 * 1024; // uncompressed bytes per gzip member
+    private boolean columnarOutput = false; // also write results.col with one block per column and row group
+    private int columnarRowGroupSize = 64 * 1024; // rows per row group in results.col
+    private int groupByKeyField = -1; // zero-based field to group lines by into groups.tsv; -1 disables group-by
+    private int groupByValueField = -1; // numeric field summed per group; -1 counts lines only
+    private int groupByDistinctField = -1; // field whose distinct values are counted per group; -1 skips it
+    private String groupByDelimiter = ","; // field separator of input lines; \t for tabs
+    private ThreadConfig ioThreadConfig = null; // null derives from ioThreads
+    private ThreadConfig cpuThreadConfig = null; // null derives from threadPoolSize
     
     // Constructors
     public ProcessorConfig() {}
@@ -53,4 +94,222 @@ public class ProcessorConfig {
     public void setSortOutput(boolean sortOutput) { 
         this.sortOutput = sortOutput; 
     }
+    
+    public long getMemoryBudgetBytes() { return memoryBudgetBytes; }
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) { 
+        this.memoryBudgetBytes = memoryBudgetBytes; 
+    }
+    
+    public double getAggregatorMemoryShare() { return aggregatorMemoryShare; }
+    public void setAggregatorMemoryShare(double aggregatorMemoryShare) { 
+        this.aggregatorMemoryShare = aggregatorMemoryShare; 
+    }
+    
+    public boolean isSpeculativeExecution() { return speculativeExecution; }
+    public void setSpeculativeExecution(boolean speculativeExecution) { 
+        this.speculativeExecution = speculativeExecution; 
+    }
+    
+    public double getSpeculationMultiplier() { return speculationMultiplier; }
+    public void setSpeculationMultiplier(double speculationMultiplier) { 
+        this.speculationMultiplier = speculationMultiplier; 
+    }
+    
+    public long getSpeculationMinMillis() { return speculationMinMillis; }
+    public void setSpeculationMinMillis(long speculationMinMillis) { 
+        this.speculationMinMillis = speculationMinMillis; 
+    }
+    
+    public long getChunkTimeoutMillis() { return chunkTimeoutMillis; }
+    public void setChunkTimeoutMillis(long chunkTimeoutMillis) { 
+        this.chunkTimeoutMillis = chunkTimeoutMillis; 
+    }
+    
+    public int getOutputPartitions() { return outputPartitions; }
+    public void setOutputPartitions(int outputPartitions) { 
+        this.outputPartitions = outputPartitions; 
+    }
+    
+    public int getPartitionBufferSize() { return partitionBufferSize; }
+    public void setPartitionBufferSize(int partitionBufferSize) { 
+        this.partitionBufferSize = partitionBufferSize; 
+    }
+    
+    public String getResultCacheDirectory() { return resultCacheDirectory; }
+    public void setResultCacheDirectory(String resultCacheDirectory) { 
+        this.resultCacheDirectory = resultCacheDirectory; 
+    }
+    
+    public long getResultCacheMaxBytes() { return resultCacheMaxBytes; }
+    public void setResultCacheMaxBytes(long resultCacheMaxBytes) { 
+        this.resultCacheMaxBytes = resultCacheMaxBytes; 
+    }
+    
+    public String getTransformationIdentity() { return transformationIdentity; }
+    public void setTransformationIdentity(String transformationIdentity) { 
+        this.transformationIdentity = transformationIdentity; 
+    }
+    
+    public boolean isRecursiveDiscovery() { return recursiveDiscovery; }
+    public void setRecursiveDiscovery(boolean recursiveDiscovery) { 
+        this.recursiveDiscovery = recursiveDiscovery; 
+    }
+    
+    public int getDiscoveryParallelism() { return discoveryParallelism; }
+    public void setDiscoveryParallelism(int discoveryParallelism) { 
+        this.discoveryParallelism = discoveryParallelism; 
+    }
+    
+    public boolean isCoalesceSmallFiles() { return coalesceSmallFiles; }
+    public void setCoalesceSmallFiles(boolean coalesceSmallFiles) { 
+        this.coalesceSmallFiles = coalesceSmallFiles; 
+    }
+    
+    public boolean isLargestFirst() { return largestFirst; }
+    public void setLargestFirst(boolean largestFirst) { 
+        this.largestFirst = largestFirst; 
+    }
+    
+    public int getIoThreads() { return ioThreads; }
+    public void setIoThreads(int ioThreads) { 
+        this.ioThreads = ioThreads; 
+    }
+    
+    public int getHandoffQueueCapacity() { return handoffQueueCapacity; }
+    public void setHandoffQueueCapacity(int handoffQueueCapacity) { 
+        this.handoffQueueCapacity = handoffQueueCapacity; 
+    }
+    
+    public int getReadBufferSize() { return readBufferSize; }
+    public void setReadBufferSize(int readBufferSize) { 
+        this.readBufferSize = readBufferSize; 
+    }
+    
+    public int getReadAheadBuffers() { return readAheadBuffers; }
+    public void setReadAheadBuffers(int readAheadBuffers) { 
+        this.readAheadBuffers = readAheadBuffers; 
+    }
+    
+    public boolean isDedupIndexEnabled() { return dedupIndexEnabled; }
+    public void setDedupIndexEnabled(boolean dedupIndexEnabled) { 
+        this.dedupIndexEnabled = dedupIndexEnabled; 
+    }
+    
+    public int getDedupIndexShards() { return dedupIndexShards; }
+    public void setDedupIndexShards(int dedupIndexShards) { 
+        this.dedupIndexShards = dedupIndexShards; 
+    }
+    
+    public int getDedupIndexInitialCapacity() { return dedupIndexInitialCapacity; }
+    public void setDedupIndexInitialCapacity(int dedupIndexInitialCapacity) { 
+        this.dedupIndexInitialCapacity = dedupIndexInitialCapacity; 
+    }
+    
+    public boolean isSortedTableOutput() { return sortedTableOutput; }
+    public void setSortedTableOutput(boolean sortedTableOutput) { 
+        this.sortedTableOutput = sortedTableOutput; 
+    }
+    
+    public int getSortedTableBlockSize() { return sortedTableBlockSize; }
+    public void setSortedTableBlockSize(int sortedTableBlockSize) { 
+        this.sortedTableBlockSize = sortedTableBlockSize; 
+    }
+    
+    public int getBloomBitsPerKey() { return bloomBitsPerKey; }
+    public void setBloomBitsPerKey(int bloomBitsPerKey) { 
+        this.bloomBitsPerKey = bloomBitsPerKey; 
+    }
+    
+    public int getJobWeight() { return jobWeight; }
+    public void setJobWeight(int jobWeight) { 
+        this.jobWeight = jobWeight; 
+    }
+    
+    public boolean isOrderedOutput() { return orderedOutput; }
+    public void setOrderedOutput(boolean orderedOutput) { 
+        this.orderedOutput = orderedOutput; 
+    }
+    
+    public boolean isExactAggregationStats() { return exactAggregationStats; }
+    public void setExactAggregationStats(boolean exactAggregationStats) { 
+        this.exactAggregationStats = exactAggregationStats; 
+    }
+    
+    public boolean isDeadLetterOutput() { return deadLetterOutput; }
+    public void setDeadLetterOutput(boolean deadLetterOutput) { 
+        this.deadLetterOutput = deadLetterOutput; 
+    }
+    
+    public int getDeadLetterBatchSize() { return deadLetterBatchSize; }
+    public void setDeadLetterBatchSize(int deadLetterBatchSize) { 
+        this.deadLetterBatchSize = deadLetterBatchSize; 
+    }
+    
+    public boolean isCompressOutput() { return compressOutput; }
+    public void setCompressOutput(boolean compressOutput) { 
+        this.compressOutput = compressOutput; 
+    }
+    
+    public int getCompressionLevel() { return compressionLevel; }
+    public void setCompressionLevel(int compressionLevel) { 
+        this.compressionLevel = compressionLevel; 
+    }
+    
+    public int getCompressionBlockSize() { return compressionBlockSize; }
+    public void setCompressionBlockSize(int compressionBlockSize) { 
+        this.compressionBlockSize = compressionBlockSize; 
+    }
+    
+    public boolean isColumnarOutput() { return columnarOutput; }
+    public void setColumnarOutput(boolean columnarOutput) { 
+        this.columnarOutput = columnarOutput; 
+    }
+    
+    public int getColumnarRowGroupSize() { return columnarRowGroupSize; }
+    public void setColumnarRowGroupSize(int columnarRowGroupSize) { 
+        this.columnarRowGroupSize = columnarRowGroupSize; 
+    }
+    
+    public int getGroupByKeyField() { return groupByKeyField; }
+    public void setGroupByKeyField(int groupByKeyField) { 
+        this.groupByKeyField = groupByKeyField; 
+    }
+    
+    public int getGroupByValueField() { return groupByValueField; }
+    public void setGroupByValueField(int groupByValueField) { 
+        this.groupByValueField = groupByValueField; 
+    }
+    
+    public int getGroupByDistinctField() { return groupByDistinctField; }
+    public void setGroupByDistinctField(int groupByDistinctField) { 
+        this.groupByDistinctField = groupByDistinctField; 
+    }
+    
+    public String getGroupByDelimiter() { return groupByDelimiter; }
+    public void setGroupByDelimiter(String groupByDelimiter) { 
+        this.groupByDelimiter = groupByDelimiter; 
+    }
+    
+    public ThreadConfig getIoThreadConfig() { 
+        return ioThreadConfig != null ? ioThreadConfig : new ThreadConfig(ioThreads, ioThreads);
+    }
+    public void setIoThreadConfig(ThreadConfig ioThreadConfig) { 
+        this.ioThreadConfig = ioThreadConfig; 
+    }
+    
+    public ThreadConfig getCpuThreadConfig() { 
+        return cpuThreadConfig != null ? cpuThreadConfig 
+            : new ThreadConfig(threadPoolSize, threadPoolSize * 2);
+    }
+    public void setCpuThreadConfig(ThreadConfig cpuThreadConfig) { 
+        this.cpuThreadConfig = cpuThreadConfig; 
+    }
+    
+    public long getChunkMemoryBudget() {
+        return (long) (memoryBudgetBytes * (1.0 - aggregatorMemoryShare));
+    }
+    
+    public long getAggregatorMemoryBudget() {
+        return (long) (memoryBudgetBytes * aggregatorMemoryShare);
+    }
 }
@@ -0,0 +1,66 @@
+package com.fileprocessor.daemon;
+
+import com.fileprocessor.config.ProcessorConfig;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * Applies key=value settings to a ProcessorConfig through its setters, so
+ * a job or the command line can override any scalar option by its property
+ * name, e.g. chunkSize=5000 or sortedTableOutput=true
+ */
+public final class ConfigOverrides {
+    private ConfigOverrides() {}
+
+    public static void apply(ProcessorConfig config, Map<String, String> overrides) {
+        for (Map.Entry<String, String> entry : overrides.entrySet()) {
+            apply(config, entry.getKey(), entry.getValue());
+        }
+    }
+
+    static void apply(ProcessorConfig config, String key, String value) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Empty config key");
+        }
+        String setter = "set" + Character.toUpperCase(key.charAt(0)) + key.substring(1);
+        for (Method method : ProcessorConfig.class.getMethods()) {
+            if (method.getName().equals(setter) && method.getParameterCount() == 1) {
+                Object argument = parse(method.getParameterTypes()[0], key, value);
+                if (argument == null) {
+                    continue; // an overload taking a type we cannot parse
+                }
+                try {
+                    method.invoke(config, argument);
+                    return;
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalArgumentException("Cannot set " + key + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown or unsupported config key: " + key);
+    }
+
+    private static Object parse(Class<?> type, String key, String value) {
+        try {
+            if (type == String.class) {
+                return value;
+            } else if (type == int.class) {
+                return Integer.parseInt(value);
+            } else if (type == long.class) {
+                return Long.parseLong(value);
+            } else if (type == double.class) {
+                return Double.parseDouble(value);
+            } else if (type == boolean.class) {
+                if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                    throw new IllegalArgumentException("Expected true or false for " + key + ": " + value);
+                }
+                return Boolean.parseBoolean(value);
+            }
+            return null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+    }
+}
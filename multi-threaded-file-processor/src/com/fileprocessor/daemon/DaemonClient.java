@@ -0,0 +1,51 @@
+package com.fileprocessor.daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Sends one request line to a ProcessingDaemon on this machine and returns
+ * its response line
+ */
+public final class DaemonClient {
+    private DaemonClient() {}
+
+    /**
+     * Run a job and wait for it to finish
+     *
+     * @param overrides key=value config overrides
+     */
+    public static String submit(int port, String inputDir, String outputDir, List<String> overrides)
+            throws IOException {
+        StringBuilder request = new StringBuilder(ProcessingDaemon.RUN)
+            .append('\t').append(inputDir).append('\t').append(outputDir);
+        for (String override : overrides) {
+            request.append('\t').append(override);
+        }
+        return send(port, request.toString());
+    }
+
+    public static String send(int port, String request) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                 socket.getOutputStream(), StandardCharsets.UTF_8));
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                 socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.write(request);
+            out.newLine();
+            out.flush();
+            String response = in.readLine();
+            if (response == null) {
+                throw new IOException("Daemon closed the connection without a response");
+            }
+            return response;
+        }
+    }
+}
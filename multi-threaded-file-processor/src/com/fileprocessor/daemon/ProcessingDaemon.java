@@ -0,0 +1,316 @@
+package com.fileprocessor.daemon;
+
+import com.fileprocessor.config.ProcessorConfig;
+import com.fileprocessor.config.ThreadConfig;
+import com.fileprocessor.dataprocessor.Transformation;
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.manager.FairScheduler;
+import com.fileprocessor.manager.ProcessingPipeline;
+import com.fileprocessor.manager.ThreadPoolManager;
+import com.fileprocessor.model.ProcessingStats;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running server that keeps one warm JVM and one pair of CPU and I/O
+ * pools for many jobs, so small batches skip JVM startup, class loading
+ * and JIT warm-up. Listens on the loopback interface only. Each connection
+ * carries one tab-separated request line and gets one response line:
+ *
+ * <pre>
+ * RUN      inputDir outputDir [key=value]*  ->  OK job=N elapsedMs=.. files=.. ... | FAILED job=N message
+ * STATUS                                    ->  OK running=.. completed=.. failed=.. pool=.. (job=N ...)*
+ * CANCEL   jobId                            ->  OK | FAILED message
+ * SHUTDOWN                                  ->  OK (running jobs finish first)
+ * </pre>
+ *
+ * Keys are ProcessorConfig property names, plus transformation=NAME for a
+ * built-in transformation. Pool sizes belong to the daemon and are not
+ * overridable per job. Chunks of concurrent jobs share the CPU workers
+ * through a FairScheduler in proportion to each job's jobWeight, so a
+ * small job is not stuck behind the backlog of a large one.
+ */
+public class ProcessingDaemon {
+    public static final String RUN = "RUN";
+    public static final String STATUS = "STATUS";
+    public static final String CANCEL = "CANCEL";
+    public static final String SHUTDOWN = "SHUTDOWN";
+
+    private final ProcessorConfig config;
+    private final int port;
+    private final FairScheduler scheduler;
+    private final ThreadPoolManager ioPoolManager;
+    private final Map<Long, ActiveJob> activeJobs = new ConcurrentHashMap<>();
+    private final Semaphore jobSlots;
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final Map<String, Transformation> transformations = new ConcurrentHashMap<>();
+    private final AtomicLong jobCounter = new AtomicLong(0);
+    private final AtomicLong completedJobs = new AtomicLong(0);
+    private final AtomicLong failedJobs = new AtomicLong(0);
+    private final AtomicInteger runningJobs = new AtomicInteger(0);
+    private volatile boolean stopping;
+    private ServerSocket serverSocket;
+
+    /**
+     * @param config pool sizes for the shared pools; the I/O pool gets
+     *               ioThreads reader threads per concurrent job
+     * @param port 0 picks a free port, see getPort()
+     * @param maxConcurrentJobs jobs beyond this wait for a running one to finish
+     */
+    public ProcessingDaemon(ProcessorConfig config, int port, int maxConcurrentJobs) {
+        this.config = config;
+        this.port = port;
+        this.scheduler = new FairScheduler(config.getCpuThreadConfig().getCorePoolSize());
+        int ioThreads = config.getIoThreadConfig().getCorePoolSize() * maxConcurrentJobs;
+        this.ioPoolManager = new ThreadPoolManager(new ThreadConfig(ioThreads, ioThreads));
+        this.jobSlots = new Semaphore(maxConcurrentJobs, true);
+    }
+
+    /**
+     * Bind and serve requests until SHUTDOWN or stop()
+     */
+    public void run() throws IOException {
+        synchronized (this) {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+            notifyAll();
+        }
+        System.out.println("Daemon listening on " + serverSocket.getLocalSocketAddress() + " with " +
+                         scheduler.getWorkerCount() + " CPU threads, " +
+                         ioPoolManager.getCorePoolSize() + " I/O threads");
+        try {
+            while (!stopping) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException e) {
+                    break; // closed by stop()
+                }
+                connections.execute(() -> serve(socket));
+            }
+        } finally {
+            stop();
+            connections.shutdown();
+            try {
+                // running jobs finish before their pools go away
+                connections.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ioPoolManager.shutdown();
+            scheduler.shutdown();
+            System.out.println("Daemon stopped after " + completedJobs.get() + " completed and " +
+                             failedJobs.get() + " failed jobs");
+        }
+    }
+
+    /**
+     * Stop accepting connections; jobs already running are completed
+     */
+    public void stop() {
+        stopping = true;
+        synchronized (this) {
+            if (serverSocket != null) {
+                try {
+                    serverSocket.close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+        }
+    }
+
+    /**
+     * Block until the server socket is bound and return its port
+     */
+    public synchronized int getPort() throws InterruptedException {
+        while (serverSocket == null) {
+            wait();
+        }
+        return serverSocket.getLocalPort();
+    }
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                 connection.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                 connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            String request = in.readLine();
+            String response = request == null ? "FAILED\tEmpty request" : handle(request);
+            out.write(response);
+            out.newLine();
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Daemon connection failed: " + e.getMessage());
+        }
+    }
+
+    private String handle(String request) {
+        String[] fields = request.split("\t");
+        switch (fields[0]) {
+            case RUN:
+                return runJob(fields);
+            case STATUS:
+                StringBuilder status = new StringBuilder("OK\trunning=").append(runningJobs.get())
+                    .append("\tcompleted=").append(completedJobs.get())
+                    .append("\tfailed=").append(failedJobs.get())
+                    .append("\tpool=").append(scheduler.getStats());
+                activeJobs.forEach((id, active) -> status.append("\tjob=").append(id).append(' ')
+                    .append(active.cpuPool.getPoolStats()));
+                return status.toString();
+            case CANCEL:
+                return cancelJob(fields);
+            case SHUTDOWN:
+                stop();
+                return "OK";
+            default:
+                return "FAILED\tUnknown command: " + fields[0];
+        }
+    }
+
+    private String runJob(String[] fields) {
+        long jobId = jobCounter.incrementAndGet();
+        String job = "job=" + jobId;
+        try {
+            if (fields.length < 3) {
+                throw new IllegalArgumentException("RUN needs an input and an output directory");
+            }
+            Map<String, String> overrides = parseOverrides(fields);
+            String transformationName = overrides.getOrDefault("transformation", "DEFAULT");
+            overrides.remove("transformation");
+            ProcessorConfig jobConfig = createJobConfig(fields[1], fields[2], overrides);
+            if (!new File(jobConfig.getInputDirectory()).isDirectory()) {
+                throw new IllegalArgumentException("Input directory does not exist: " +
+                                                   jobConfig.getInputDirectory());
+            }
+            new File(jobConfig.getOutputDirectory()).mkdirs();
+
+            ThreadPoolManager cpuPool = new ThreadPoolManager(
+                scheduler.register("job-" + jobId, jobConfig.getJobWeight()));
+            ProcessingPipeline pipeline = transformationName.equalsIgnoreCase("DEFAULT")
+                ? new ProcessingPipeline(jobConfig, cpuPool, ioPoolManager)
+                : new ProcessingPipeline(jobConfig, transformation(transformationName),
+                                         cpuPool, ioPoolManager);
+            activeJobs.put(jobId, new ActiveJob(pipeline, cpuPool));
+
+            try {
+                jobSlots.acquire();
+            } catch (InterruptedException e) {
+                activeJobs.remove(jobId);
+                cpuPool.shutdown();
+                throw e;
+            }
+            runningJobs.incrementAndGet();
+            try {
+                long start = System.nanoTime();
+                if (pipeline.isCancelled()) {
+                    throw new FileProcessingException("Processing cancelled");
+                }
+                pipeline.execute();
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+                ProcessingStats stats = pipeline.getStats();
+                completedJobs.incrementAndGet();
+                return "OK\t" + job + "\telapsedMs=" + elapsedMillis +
+                       "\tfiles=" + stats.getFilesProcessed() + "\tchunks=" + stats.getChunksProcessed() +
+                       "\trecords=" + pipeline.getRecordsWritten() +
+                       "\terrors=" + stats.getErrorCount() + "\tfailedLines=" + stats.getFailedLines();
+            } finally {
+                activeJobs.remove(jobId);
+                cpuPool.shutdown();
+                runningJobs.decrementAndGet();
+                jobSlots.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedJobs.incrementAndGet();
+            return "FAILED\t" + job + "\tInterrupted";
+        } catch (RuntimeException e) {
+            failedJobs.incrementAndGet();
+            System.err.println("Job " + jobId + " failed: " + e.getMessage());
+            return "FAILED\t" + job + "\t" + String.valueOf(e.getMessage()).replace('\t', ' ').replace('\n', ' ');
+        }
+    }
+
+    private String cancelJob(String[] fields) {
+        if (fields.length < 2) {
+            return "FAILED\tCANCEL needs a job id";
+        }
+        ActiveJob active;
+        try {
+            active = activeJobs.get(Long.parseLong(fields[1]));
+        } catch (NumberFormatException e) {
+            return "FAILED\tInvalid job id: " + fields[1];
+        }
+        if (active == null) {
+            return "FAILED\tNo running job " + fields[1];
+        }
+        active.pipeline.cancel();
+        return "OK";
+    }
+
+    private static Map<String, String> parseOverrides(String[] fields) {
+        Map<String, String> overrides = new LinkedHashMap<>();
+        for (int i = 3; i < fields.length; i++) {
+            int eq = fields[i].indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value: " + fields[i]);
+            }
+            String key = fields[i].substring(0, eq);
+            if (key.equals("threadPoolSize") || key.equals("ioThreads") || key.endsWith("ThreadConfig")) {
+                throw new IllegalArgumentException(key + " is fixed by the daemon's shared pools");
+            }
+            overrides.put(key, fields[i].substring(eq + 1));
+        }
+        return overrides;
+    }
+
+    private ProcessorConfig createJobConfig(String inputDir, String outputDir, Map<String, String> overrides) {
+        ProcessorConfig jobConfig = new ProcessorConfig();
+        jobConfig.setInputDirectory(inputDir);
+        jobConfig.setOutputDirectory(outputDir);
+        jobConfig.setIoThreads(config.getIoThreadConfig().getCorePoolSize());
+        ConfigOverrides.apply(jobConfig, overrides);
+        return jobConfig;
+    }
+
+    /**
+     * Built-in transformations are resolved once and reused by later jobs
+     */
+    private Transformation transformation(String name) {
+        return transformations.computeIfAbsent(name.toUpperCase(), Transformation::forName);
+    }
+
+    private static class ActiveJob {
+        final ProcessingPipeline pipeline;
+        final ThreadPoolManager cpuPool;
+
+        ActiveJob(ProcessingPipeline pipeline, ThreadPoolManager cpuPool) {
+            this.pipeline = pipeline;
+            this.cpuPool = cpuPool;
+        }
+    }
+
+    public long getCompletedJobs() { return completedJobs.get(); }
+    public long getFailedJobs() { return failedJobs.get(); }
+    public int getRunningJobs() { return runningJobs.get(); }
+}
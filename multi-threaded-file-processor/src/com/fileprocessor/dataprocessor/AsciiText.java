@@ -0,0 +1,97 @@
+package com.fileprocessor.dataprocessor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte-level case folding for ASCII lines. The line's chars are copied
+ * into a reused per-thread byte buffer and folded eight at a time with
+ * SWAR arithmetic on longs; a line that needs no change is returned as is,
+ * and a line containing any non-ASCII char falls back to the String method.
+ */
+final class AsciiText {
+    private static final VarHandle LONGS = 
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long ONES = 0x0101010101010101L;
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private AsciiText() {}
+
+    static String toUpperCase(String line) {
+        return fold(line, 'a', 'z', true);
+    }
+
+    static String toLowerCase(String line) {
+        return fold(line, 'A', 'Z', false);
+    }
+
+    /**
+     * String.trim semantics: strip chars at or below ' ' from both ends.
+     * String.trim already returns the line itself when nothing is stripped
+     * and copies once otherwise, so this only skips its Latin-1/UTF-16 dispatch.
+     */
+    static String trim(String line) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return start == 0 && end == line.length() ? line : line.substring(start, end);
+    }
+
+    /**
+     * Flip bit 0x20 of every byte in [first, last]
+     */
+    private static String fold(String line, char first, char last, boolean upper) {
+        int length = line.length();
+        byte[] bytes = buffer(length);
+        int charBits = 0;
+        for (int j = 0; j < length; j++) {
+            char c = line.charAt(j);
+            charBits |= c;
+            bytes[j] = (byte) c;
+        }
+        if (charBits > 0x7F) {
+            return fallback(line, upper);
+        }
+
+        long aboveFirst = ONES * (0x80 - first);
+        long aboveLast = ONES * (0x80 - last - 1);
+        long changed = 0;
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            long word = (long) LONGS.get(bytes, i);
+            // High bit of each byte set where first <= byte <= last; no carries since bytes are < 0x80
+            long inRange = (word + aboveFirst) & ~(word + aboveLast) & HIGH_BITS;
+            changed |= inRange;
+            LONGS.set(bytes, i, word ^ (inRange >>> 2));
+        }
+        for (; i < length; i++) {
+            int b = bytes[i];
+            if (b >= first && b <= last) {
+                bytes[i] = (byte) (b ^ 0x20);
+                changed = 1;
+            }
+        }
+        return changed == 0 ? line : new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String fallback(String line, boolean upper) {
+        return upper ? line.toUpperCase() : line.toLowerCase();
+    }
+
+    private static byte[] buffer(int length) {
+        byte[] bytes = BUFFER.get();
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+            BUFFER.set(bytes);
+        }
+        return bytes;
+    }
+}
@@ -1,6 +1,10 @@
 // dataprocessor/DataProcessor.java
 package com.fileprocessor.dataprocessor;
 
+import com.fileprocessor.aggregator.DedupIndex;
+import com.fileprocessor.aggregator.GroupByAggregator;
+import com.fileprocessor.aggregator.PartialAggregate;
+import com.fileprocessor.aggregator.ResultAggregator;
 import com.fileprocessor.filereader.Chunk;
 import com.fileprocessor.exception.ChunkProcessingException;
 import com.fileprocessor.model.ProcessedData;
@@ -9,16 +13,49 @@ import com.fileprocessor.model.ProcessingStats;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DataProcessor implements Callable<List<ProcessedData>> {
+    private static final int INTERRUPT_CHECK_INTERVAL = 1024;
+
     private final Chunk chunk;
     private final Transformation transformation;
     private final ProcessingStats stats;
+    private final FilterChain filterChain;
+    private final GroupByAggregator groupBy;
+    private final ResultSink resultSink;
+    private final ResultCache resultCache;
+    private final DedupIndex dedupIndex;
+    private final DeadLetterSink deadLetterSink;
+    private final ResultAggregator sketchAggregator;
+    private final AtomicBoolean commitGuard;
+    private volatile boolean committed;
 
     public DataProcessor(Chunk chunk, Transformation transformation, ProcessingStats stats) {
+        this(chunk, new ProcessingContext(transformation, stats));
+    }
+
+    public DataProcessor(Chunk chunk, ProcessingContext context) {
+        this(chunk, context, null);
+    }
+
+    /**
+     * @param commitGuard shared between speculative attempts of the same chunk;
+     *                    only the attempt that finishes first records stats,
+     *                    the others return null
+     */
+    public DataProcessor(Chunk chunk, ProcessingContext context, AtomicBoolean commitGuard) {
         this.chunk = chunk;
-        this.transformation = transformation;
-        this.stats = stats;
+        this.transformation = context.getTransformation();
+        this.filterChain = context.getFilterChain();
+        this.groupBy = context.getGroupBy();
+        this.stats = context.getStats();
+        this.resultSink = context.getResultSink();
+        this.resultCache = context.getResultCache();
+        this.dedupIndex = context.getDedupIndex();
+        this.deadLetterSink = context.getDeadLetterSink();
+        this.sketchAggregator = context.getSketchAggregator();
+        this.commitGuard = commitGuard;
     }
 
     @Override
@@ -26,14 +63,55 @@ public class DataProcessor implements Callable<List<ProcessedData>> {
         System.out.println(Thread.currentThread().getName() + " processing " + chunk.getChunkId());
         
         try {
-            List<ProcessedData> processedResults = processChunk(chunk);
-            validateResults(processedResults);
+            FilterChain.Counters counters = filterChain.newCounters();
+            List<DeadLetterSink.Failure> failures = new ArrayList<>();
             
-            stats.incrementChunksProcessed();
-            stats.addRecords(processedResults.size());
+            if (groupBy != null) {
+                // An attempt that loses the commit or times out must not leave records in the groups
+                PartialAggregate partial = new PartialAggregate();
+                long aggregated = aggregateLines(chunk, partial, counters, failures);
+                if (!commit(counters, aggregated, failures)) {
+                    return null;
+                }
+                groupBy.merge(partial);
+                return new ArrayList<>();
+            }
             
+            String cacheKey = resultCache != null ? resultCache.keyFor(chunk) : null;
+            List<ProcessedData> processedResults = cacheKey != null ? resultCache.lookup(cacheKey, counters) : null;
+            boolean cacheHit = processedResults != null;
+            if (!cacheHit) {
+                processedResults = processLines(chunk, counters, failures);
+            }
+            validateResults(processedResults);
+            
+            if (!commit(counters, processedResults.size(), failures)) {
+                return null;
+            }
+            if (cacheHit) {
+                stats.incrementCacheHits();
+            } else if (cacheKey != null) {
+                stats.incrementCacheMisses();
+                if (failures.isEmpty()) {
+                    // A hit replays no failed lines, so only failure-free chunks may be cached
+                    resultCache.store(cacheKey, processedResults, counters);
+                }
+            }
+            if (dedupIndex != null) {
+                // Only the committing attempt may insert, or a losing duplicate would hide the records
+                processedResults = dedupIndex.retainNew(processedResults);
+            }
+            if (resultSink != null) {
+                resultSink.accept(processedResults);
+                return new ArrayList<>();
+            }
+            if (sketchAggregator != null) {
+                sketchAggregator.sketchIds(processedResults);
+            }
             return processedResults;
             
+        } catch (ChunkCancelledException e) {
+            return null;
         } catch (Exception e) {
             stats.incrementErrorCount();
             throw new ChunkProcessingException(chunk.getChunkId(), 
@@ -41,30 +119,142 @@ public class DataProcessor implements Callable<List<ProcessedData>> {
         }
     }
 
+    /**
+     * Record stats and failed lines for this attempt unless another attempt
+     * already did
+     *
+     * @return true if this attempt owns the chunk's result
+     */
+    private boolean commit(FilterChain.Counters counters, long records, List<DeadLetterSink.Failure> failures) {
+        if (commitGuard != null && !commitGuard.compareAndSet(false, true)) {
+            return false;
+        }
+        filterChain.publish(counters, stats);
+        stats.incrementChunksProcessed();
+        stats.addRecords(records);
+        reportFailures(failures);
+        committed = true;
+        return true;
+    }
+
+    /**
+     * @return true once this attempt owns the chunk's result, even if it
+     *         failed afterwards
+     */
+    public boolean hasCommitted() {
+        return committed;
+    }
+
+    /**
+     * Count failed lines and hand them to the dead letter sink; without a
+     * sink, one stderr line summarizes the chunk's failures
+     */
+    private void reportFailures(List<DeadLetterSink.Failure> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        stats.addFailedLines(failures.size());
+        if (deadLetterSink != null) {
+            deadLetterSink.accept(failures);
+        } else {
+            System.err.println(failures.size() + " lines failed in " + chunk.getChunkId() + 
+                             ", first " + failures.get(0));
+        }
+    }
+
     /**
      * Process a single chunk of data
      */
     public List<ProcessedData> processChunk(Chunk chunk) {
+        FilterChain.Counters counters = filterChain.newCounters();
+        List<DeadLetterSink.Failure> failures = new ArrayList<>();
+        List<ProcessedData> results = processLines(chunk, counters, failures);
+        filterChain.publish(counters, stats);
+        reportFailures(failures);
+        return results;
+    }
+
+    private List<ProcessedData> processLines(Chunk chunk, FilterChain.Counters counters, 
+                                             List<DeadLetterSink.Failure> failures) {
         List<ProcessedData> results = new ArrayList<>();
-        int lineNumber = chunk.getStartLine();
+        List<String> lines = chunk.getLines();
+        boolean filtering = !filterChain.isEmpty();
+        int index = 0;
         
-        for (String line : chunk.getLines()) {
-            try {
-                if (line != null && !line.trim().isEmpty()) {
-                    ProcessedData processed = transformData(line, lineNumber, chunk.getSourceFile());
-                    results.add(processed);
+        for (Chunk.Segment segment : chunk.getSegments()) {
+            String sourceFile = segment.getSourceFile();
+            int lineNumber = segment.getStartLine();
+            for (int end = index + segment.getLineCount(); index < end; index++, lineNumber++) {
+                checkCancelled(index);
+                String line = lines.get(index);
+                try {
+                    if (line != null && !line.isBlank()
+                            && (!filtering || filterChain.accept(line, lineNumber, sourceFile, counters))) {
+                        results.add(transformData(line, lineNumber, sourceFile));
+                    }
+                } catch (Exception e) {
+                    failures.add(new DeadLetterSink.Failure(sourceFile, lineNumber, e, line));
+                    // Continue processing other lines in the chunk
                 }
-                lineNumber++;
-            } catch (Exception e) {
-                System.err.println("Error processing line " + lineNumber + " in " + 
-                                 chunk.getChunkId() + ": " + e.getMessage());
-                // Continue processing other lines in the chunk
             }
         }
         
         return results;
     }
 
+    /**
+     * Fold a chunk into the group-by partials of the current thread.
+     * Keys are extracted from the raw line; the transformation is not applied.
+     */
+    public long aggregateChunk(Chunk chunk) {
+        FilterChain.Counters counters = filterChain.newCounters();
+        List<DeadLetterSink.Failure> failures = new ArrayList<>();
+        PartialAggregate partial = new PartialAggregate();
+        long aggregated = aggregateLines(chunk, partial, counters, failures);
+        groupBy.merge(partial);
+        filterChain.publish(counters, stats);
+        reportFailures(failures);
+        return aggregated;
+    }
+
+    private long aggregateLines(Chunk chunk, PartialAggregate partial, FilterChain.Counters counters, 
+                                List<DeadLetterSink.Failure> failures) {
+        long aggregated = 0;
+        List<String> lines = chunk.getLines();
+        boolean filtering = !filterChain.isEmpty();
+        int index = 0;
+        
+        for (Chunk.Segment segment : chunk.getSegments()) {
+            String sourceFile = segment.getSourceFile();
+            int lineNumber = segment.getStartLine();
+            for (int end = index + segment.getLineCount(); index < end; index++, lineNumber++) {
+                checkCancelled(index);
+                String line = lines.get(index);
+                try {
+                    if (line != null && !line.isBlank()
+                            && (!filtering || filterChain.accept(line, lineNumber, sourceFile, counters))
+                            && groupBy.accumulate(line, lineNumber, sourceFile, partial)) {
+                        aggregated++;
+                    }
+                } catch (Exception e) {
+                    failures.add(new DeadLetterSink.Failure(sourceFile, lineNumber, e, line));
+                }
+            }
+        }
+        
+        return aggregated;
+    }
+
+    /**
+     * Abandon the chunk if this attempt was cancelled, e.g. because a
+     * speculative copy already finished
+     */
+    private void checkCancelled(int lineIndex) {
+        if ((lineIndex & (INTERRUPT_CHECK_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new ChunkCancelledException();
+        }
+    }
+
     /**
      * Transform individual data line
      */
@@ -110,4 +300,15 @@ public class DataProcessor implements Callable<List<ProcessedData>> {
     public Chunk getChunk() {
         return chunk;
     }
+
+    /**
+     * Control-flow signal for a cancelled attempt; carries no stack trace
+     */
+    private static class ChunkCancelledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ChunkCancelledException() {
+            super(null, null, false, false);
+        }
+    }
 }
@@ -0,0 +1,174 @@
+package com.fileprocessor.dataprocessor;
+
+import com.fileprocessor.exception.FileProcessingException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects lines that failed to process and appends them in batches to a
+ * tab-separated file of source file, line number, error class, message
+ * and the line itself. Each worker thread buffers its own failures, so a
+ * file of malformed lines costs one write per batch instead of a stderr
+ * write per line with every worker queued on the stderr lock. The file is
+ * only created when the first batch is written.
+ */
+public class DeadLetterSink implements Closeable {
+    public static final String FILE_NAME = "dead-letters.tsv";
+
+    private final File file;
+    private final int batchSize;
+    private final Queue<List<Failure>> allBuffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<List<Failure>> localBuffer;
+    private BufferedWriter writer;
+    private long written;
+    private boolean closed;
+
+    /**
+     * The file of an earlier run in the same directory is removed, so it
+     * never outlives a run without failures
+     *
+     * @param batchSize failures each worker buffers before appending them to the file
+     */
+    public DeadLetterSink(File outputDirectory, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.file = new File(outputDirectory, FILE_NAME);
+        this.batchSize = batchSize;
+        file.delete();
+        this.localBuffer = ThreadLocal.withInitial(() -> {
+            List<Failure> buffer = new ArrayList<>();
+            allBuffers.add(buffer);
+            return buffer;
+        });
+    }
+
+    /**
+     * Buffer the committed failures of one chunk on the calling worker thread
+     */
+    public void accept(List<Failure> failures) {
+        List<Failure> buffer = localBuffer.get();
+        synchronized (buffer) {
+            buffer.addAll(failures);
+            if (buffer.size() >= batchSize) {
+                append(buffer);
+            }
+        }
+    }
+
+    private synchronized void append(List<Failure> batch) {
+        if (closed) {
+            // a straggler committing after the run ended
+            System.err.println("Dropped " + batch.size() + " failed lines; " + file + " is already closed");
+            batch.clear();
+            return;
+        }
+        try {
+            if (writer == null) {
+                File parent = file.getParentFile();
+                if (parent != null && !parent.exists()) {
+                    parent.mkdirs();
+                }
+                writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024);
+            }
+            for (Failure failure : batch) {
+                writer.write(escape(failure.sourceFile));
+                writer.write('\t');
+                writer.write(Integer.toString(failure.lineNumber));
+                writer.write('\t');
+                writer.write(failure.errorClass);
+                writer.write('\t');
+                writer.write(escape(failure.message));
+                writer.write('\t');
+                writer.write(escape(failure.line));
+                writer.newLine();
+            }
+            written += batch.size();
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write dead letter file: " + file, e);
+        }
+        batch.clear();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf('\t') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0
+                && value.indexOf('\\') < 0) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    /**
+     * Write every worker's partial batch and close the file. Only call
+     * once all tasks have completed; closing again does nothing.
+     */
+    @Override
+    public void close() {
+        for (List<Failure> buffer : allBuffers) {
+            synchronized (buffer) {
+                if (!buffer.isEmpty()) {
+                    append(buffer);
+                }
+            }
+        }
+        synchronized (this) {
+            closed = true;
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    throw new FileProcessingException("Failed to write dead letter file: " + file, e);
+                }
+                writer = null;
+            }
+        }
+    }
+
+    public File getFile() { return file; }
+    public synchronized long getWritten() { return written; }
+
+    /**
+     * One line that could not be processed. Only the exception's class and
+     * message are kept; its stack trace is never read.
+     */
+    public static class Failure {
+        private final String sourceFile;
+        private final int lineNumber;
+        private final String errorClass;
+        private final String message;
+        private final String line;
+
+        public Failure(String sourceFile, int lineNumber, Exception error, String line) {
+            this.sourceFile = sourceFile;
+            this.lineNumber = lineNumber;
+            this.errorClass = error.getClass().getName();
+            this.message = error.getMessage();
+            this.line = line;
+        }
+
+        public String getSourceFile() { return sourceFile; }
+        public int getLineNumber() { return lineNumber; }
+        public String getErrorClass() { return errorClass; }
+        public String getMessage() { return message; }
+        public String getLine() { return line; }
+
+        @Override
+        public String toString() {
+            return sourceFile + ":" + lineNumber + ": " + errorClass + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.fileprocessor.dataprocessor;
+
+import com.fileprocessor.model.ProcessingStats;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered list of named filters applied before transformation.
+ * Filters are evaluated in insertion order and short-circuit on the
+ * first rejection, so cheap and highly selective filters belong first.
+ */
+public class FilterChain {
+    private final List<String> names = new ArrayList<>();
+    private final List<LineFilter> filters = new ArrayList<>();
+
+    public FilterChain add(String name, LineFilter filter) {
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Duplicate filter name: " + name);
+        }
+        names.add(name);
+        filters.add(filter);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return filters.isEmpty();
+    }
+
+    public int size() {
+        return filters.size();
+    }
+
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Create per-task counters; one instance per DataProcessor so the hot
+     * loop never touches shared state
+     */
+    public Counters newCounters() {
+        return new Counters(filters.size());
+    }
+
+    /**
+     * Evaluate all filters against a line, recording evaluated/passed
+     * counts locally
+     */
+    public boolean accept(String line, int lineNumber, String sourceFile, Counters counters) {
+        for (int i = 0; i < filters.size(); i++) {
+            counters.evaluated[i]++;
+            if (!filters.get(i).test(line, lineNumber, sourceFile)) {
+                return false;
+            }
+            counters.passed[i]++;
+        }
+        return true;
+    }
+
+    /**
+     * Publish local counters into the shared stats, once per chunk
+     */
+    public void publish(Counters counters, ProcessingStats stats) {
+        for (int i = 0; i < filters.size(); i++) {
+            if (counters.evaluated[i] > 0) {
+                stats.recordFilterResults(names.get(i), counters.evaluated[i], counters.passed[i]);
+            }
+        }
+    }
+
+    /**
+     * Plain per-task counters for each filter in the chain
+     */
+    public static class Counters {
+        private final long[] evaluated;
+        private final long[] passed;
+
+        private Counters(int size) {
+            this.evaluated = new long[size];
+            this.passed = new long[size];
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(evaluated.length);
+            for (int i = 0; i < evaluated.length; i++) {
+                out.writeLong(evaluated[i]);
+                out.writeLong(passed[i]);
+            }
+        }
+
+        /**
+         * Replace these counters with ones written by write(); left
+         * untouched if the input is short or for a different chain
+         */
+        void read(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            if (size != evaluated.length) {
+                throw new IOException("Counters for " + size + " filters, expected " + evaluated.length);
+            }
+            long[] readEvaluated = new long[size];
+            long[] readPassed = new long[size];
+            for (int i = 0; i < size; i++) {
+                readEvaluated[i] = in.readLong();
+                readPassed[i] = in.readLong();
+            }
+            System.arraycopy(readEvaluated, 0, evaluated, 0, size);
+            System.arraycopy(readPassed, 0, passed, 0, size);
+        }
+    }
+}
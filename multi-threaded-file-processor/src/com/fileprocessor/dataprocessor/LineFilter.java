@@ -0,0 +1,44 @@
+package com.fileprocessor.dataprocessor;
+
+import java.util.regex.Pattern;
+
+/**
+ * Predicate evaluated on a raw input line before any ID generation or
+ * ProcessedData allocation takes place. Rejected lines cost one call.
+ */
+@FunctionalInterface
+public interface LineFilter {
+    boolean test(String line, int lineNumber, String sourceFile);
+    
+    // Common filter implementations
+    LineFilter ACCEPT_ALL = (line, lineNumber, sourceFile) -> true;
+    
+    LineFilter NON_BLANK = (line, lineNumber, sourceFile) -> !line.isBlank();
+    
+    static LineFilter contains(String literal) {
+        return (line, lineNumber, sourceFile) -> line.contains(literal);
+    }
+    
+    static LineFilter startsWith(String prefix) {
+        return (line, lineNumber, sourceFile) -> line.startsWith(prefix);
+    }
+    
+    static LineFilter matches(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return (line, lineNumber, sourceFile) -> pattern.matcher(line).find();
+    }
+    
+    default LineFilter and(LineFilter other) {
+        return (line, lineNumber, sourceFile) -> 
+            this.test(line, lineNumber, sourceFile) && other.test(line, lineNumber, sourceFile);
+    }
+    
+    default LineFilter or(LineFilter other) {
+        return (line, lineNumber, sourceFile) -> 
+            this.test(line, lineNumber, sourceFile) || other.test(line, lineNumber, sourceFile);
+    }
+    
+    default LineFilter negate() {
+        return (line, lineNumber, sourceFile) -> !this.test(line, lineNumber, sourceFile);
+    }
+}
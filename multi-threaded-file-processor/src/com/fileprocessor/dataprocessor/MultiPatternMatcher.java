@@ -0,0 +1,441 @@
+package com.fileprocessor.dataprocessor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a line against many literals and regexes in a single pass.
+ * Literals (and the required literal of each regex) are compiled into one
+ * Aho-Corasick automaton; a regex only runs when its required literal was
+ * seen in the line, or always when no such literal could be extracted.
+ * Patterns are prioritised in registration order: the first registered
+ * pattern that matches is the one reported. Ignoring case folds ASCII
+ * letters only, on literals as on regexes (CASE_INSENSITIVE without
+ * UNICODE_CASE).
+ */
+public class MultiPatternMatcher {
+    private static final int ASCII = 128;
+    private static final int NO_MATCH = -1;
+    private static final Pattern INLINE_FLAGS = Pattern.compile("\\(\\?[-a-zA-Z]");
+    private static final String MULTI_CHAR_ESCAPES = "xucpPkN";
+
+    private final boolean ignoreCase;
+    private final List<String> names = new ArrayList<>();
+    private final List<String> literals = new ArrayList<>();   // null for regex patterns
+    private final List<Pattern> regexes = new ArrayList<>();   // null for literal patterns
+    private final List<String> prefilters = new ArrayList<>(); // required literal or null
+    private LongAdder[] matchCounts = new LongAdder[0];
+
+    // Compiled automaton
+    private volatile boolean compiled;
+    private int[][] asciiGoto;
+    private List<Map<Character, Integer>> otherGoto;
+    private int[] failure;
+    private int[][] outputs;
+    private boolean[] regexAlwaysCandidate;
+    private final ThreadLocal<boolean[]> candidateScratch;
+
+    public MultiPatternMatcher() {
+        this(false);
+    }
+
+    public MultiPatternMatcher(boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.candidateScratch = ThreadLocal.withInitial(() -> new boolean[names.size()]);
+    }
+
+    /**
+     * Register a plain substring pattern
+     */
+    public synchronized MultiPatternMatcher addLiteral(String name, String literal) {
+        if (literal == null || literal.isEmpty()) {
+            throw new IllegalArgumentException("Literal pattern must not be empty: " + name);
+        }
+        register(name, fold(literal), null, null);
+        return this;
+    }
+
+    /**
+     * Register a regex pattern, found anywhere in the line
+     */
+    public synchronized MultiPatternMatcher addRegex(String name, String regex) {
+        Pattern pattern = Pattern.compile(regex, ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+        String required = extractRequiredLiteral(regex);
+        register(name, null, pattern, required == null ? null : fold(required));
+        return this;
+    }
+
+    private void register(String name, String literal, Pattern regex, String prefilter) {
+        if (compiled) {
+            throw new IllegalStateException("Matcher already compiled; cannot add pattern " + name);
+        }
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Duplicate pattern name: " + name);
+        }
+        names.add(name);
+        literals.add(literal);
+        regexes.add(regex);
+        prefilters.add(prefilter);
+    }
+
+    /**
+     * Build the automaton; called implicitly on first match
+     */
+    public synchronized MultiPatternMatcher compile() {
+        if (compiled) {
+            return this;
+        }
+
+        List<int[]> asciiNodes = new ArrayList<>();
+        otherGoto = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        newNode(asciiNodes, nodeOutputs);
+
+        regexAlwaysCandidate = new boolean[names.size()];
+        for (int id = 0; id < names.size(); id++) {
+            String key = literals.get(id) != null ? literals.get(id) : prefilters.get(id);
+            if (key == null) {
+                regexAlwaysCandidate[id] = true;
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                int next = child(asciiNodes, state, c);
+                if (next <= 0) {
+                    next = newNode(asciiNodes, nodeOutputs);
+                    if (c < ASCII) {
+                        asciiNodes.get(state)[c] = next;
+                    } else {
+                        otherGoto.get(state).put(c, next);
+                    }
+                }
+                state = next;
+            }
+            nodeOutputs.get(state).add(id);
+        }
+
+        // Breadth-first construction of failure links; the ASCII table is
+        // completed into a DFA so scanning never follows failure links for ASCII
+        int size = asciiNodes.size();
+        failure = new int[size];
+        Queue<Integer> queue = new ArrayDeque<>();
+        int[] root = asciiNodes.get(0);
+        for (int c = 0; c < ASCII; c++) {
+            if (root[c] > 0) {
+                failure[root[c]] = 0;
+                queue.add(root[c]);
+            } else {
+                root[c] = 0;
+            }
+        }
+        for (int next : otherGoto.get(0).values()) {
+            failure[next] = 0;
+            queue.add(next);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = asciiNodes.get(state);
+            int[] failRow = asciiNodes.get(failure[state]);
+            nodeOutputs.get(state).addAll(nodeOutputs.get(failure[state]));
+            for (int c = 0; c < ASCII; c++) {
+                if (row[c] > 0) {
+                    failure[row[c]] = failRow[c];
+                    queue.add(row[c]);
+                } else {
+                    row[c] = failRow[c];
+                }
+            }
+            for (Map.Entry<Character, Integer> e : otherGoto.get(state).entrySet()) {
+                failure[e.getValue()] = otherTransition(failure[state], e.getKey());
+                queue.add(e.getValue());
+            }
+        }
+
+        asciiGoto = asciiNodes.toArray(new int[0][]);
+        outputs = new int[size][];
+        for (int i = 0; i < size; i++) {
+            outputs[i] = nodeOutputs.get(i).stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+        matchCounts = new LongAdder[names.size()];
+        for (int i = 0; i < matchCounts.length; i++) {
+            matchCounts[i] = new LongAdder();
+        }
+        compiled = true;
+        return this;
+    }
+
+    private int newNode(List<int[]> asciiNodes, List<List<Integer>> nodeOutputs) {
+        int[] row = new int[ASCII];
+        Arrays.fill(row, -1);
+        asciiNodes.add(row);
+        otherGoto.add(new HashMap<>());
+        nodeOutputs.add(new ArrayList<>());
+        return asciiNodes.size() - 1;
+    }
+
+    private int child(List<int[]> asciiNodes, int state, char c) {
+        if (c < ASCII) {
+            return asciiNodes.get(state)[c];
+        }
+        return otherGoto.get(state).getOrDefault(c, -1);
+    }
+
+    private int otherTransition(int state, char c) {
+        while (true) {
+            Integer next = otherGoto.get(state).get(c);
+            if (next != null) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failure[state];
+        }
+    }
+
+    /**
+     * Find the first registered pattern matching the line
+     *
+     * @return pattern index, or -1 if nothing matched
+     */
+    public int firstMatch(String line) {
+        if (!compiled) {
+            compile();
+        }
+        boolean[] candidates = candidateScratch.get();
+        if (candidates.length != names.size()) {
+            candidates = new boolean[names.size()];
+            candidateScratch.set(candidates);
+        }
+
+        // Single pass over the line: best literal hit and regex candidates
+        int best = Integer.MAX_VALUE;
+        int state = 0;
+        for (int i = 0, n = line.length(); i < n; i++) {
+            char c = line.charAt(i);
+            if (ignoreCase) {
+                c = foldAscii(c);
+            }
+            state = c < ASCII ? asciiGoto[state][c] : otherTransition(state, c);
+            for (int id : outputs[state]) {
+                if (id >= best) {
+                    break;
+                }
+                if (literals.get(id) != null) {
+                    best = id;
+                } else {
+                    candidates[id] = true;
+                }
+            }
+        }
+
+        // Regexes registered before the best literal hit get a chance to win
+        int limit = Math.min(best, names.size());
+        int result = best == Integer.MAX_VALUE ? NO_MATCH : best;
+        for (int id = 0; id < limit; id++) {
+            Pattern regex = regexes.get(id);
+            if (regex != null && (candidates[id] || regexAlwaysCandidate[id])
+                    && regex.matcher(line).find()) {
+                result = id;
+                break;
+            }
+        }
+        Arrays.fill(candidates, false);
+
+        if (result != NO_MATCH) {
+            matchCounts[result].increment();
+        }
+        return result;
+    }
+
+    /**
+     * Name of the first matching pattern, or null
+     */
+    public String match(String line) {
+        int id = firstMatch(line);
+        return id == NO_MATCH ? null : names.get(id);
+    }
+
+    /**
+     * Filter that keeps only lines matching at least one pattern
+     */
+    public LineFilter asFilter() {
+        return (line, lineNumber, sourceFile) -> firstMatch(line) != NO_MATCH;
+    }
+
+    /**
+     * Transformation that prefixes each line with the name of the matched pattern
+     */
+    public Transformation tagging() {
+        return (line, lineNumber, sourceFile) -> {
+            String name = match(line);
+            return name == null ? line : "[" + name + "] " + line;
+        };
+    }
+
+    public List<String> getPatternNames() {
+        return new ArrayList<>(names);
+    }
+
+    public String getPatternName(int index) {
+        return names.get(index);
+    }
+
+    /**
+     * Number of lines attributed to each pattern so far
+     */
+    public Map<String, Long> getMatchCounts() {
+        Map<String, Long> counts = new java.util.LinkedHashMap<>();
+        for (int i = 0; i < matchCounts.length; i++) {
+            counts.put(names.get(i), matchCounts[i].sum());
+        }
+        return counts;
+    }
+
+    private String fold(String s) {
+        if (!ignoreCase) {
+            return s;
+        }
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = foldAscii(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static char foldAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Extract the longest literal run that every match of the regex must
+     * contain. Returns null when no safe literal exists (top-level
+     * alternation, inline flags anywhere, quoting, escapes spanning
+     * several characters such as \x41 or \p{L}, or only meta characters).
+     */
+    static String extractRequiredLiteral(String regex) {
+        // (?i), (?-i:...) etc. can change how any later literal matches
+        if (INLINE_FLAGS.matcher(regex).find() || regex.contains("\\Q")) {
+            return null;
+        }
+        StringBuilder current = new StringBuilder();
+        String longest = "";
+        int depth = 0;
+
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (depth > 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == '[') {
+                    i = classEnd(regex, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                }
+                continue;
+            }
+
+            char literal;
+            int next = i + 1;
+            if (c == '\\' && i + 1 < regex.length()) {
+                char escaped = regex.charAt(i + 1);
+                next = i + 2;
+                if (Character.isDigit(escaped) || MULTI_CHAR_ESCAPES.indexOf(escaped) >= 0) {
+                    // octal, back reference, hex, unicode, control, named or property escape
+                    return null;
+                } else if (Character.isLetter(escaped)) {
+                    literal = 0; // character class, boundary or control character
+                } else {
+                    literal = escaped;
+                }
+            } else if (c == '|') {
+                return null;
+            } else if (c == '(') {
+                depth++;
+                literal = 0;
+            } else if (c == '[') {
+                int close = classEnd(regex, i);
+                if (close < 0) {
+                    return null;
+                }
+                next = close + 1;
+                literal = 0;
+            } else if (".^$".indexOf(c) >= 0) {
+                literal = 0;
+            } else if ("*+?{".indexOf(c) >= 0) {
+                // Quantifier: previous atom is optional or repeated
+                if (c != '+' && current.length() > 0) {
+                    current.setLength(current.length() - 1);
+                }
+                if (current.length() > longest.length()) {
+                    longest = current.toString();
+                }
+                current.setLength(0);
+                if (c == '{') {
+                    int close = regex.indexOf('}', i);
+                    next = close < 0 ? regex.length() : close + 1;
+                }
+                i = next - 1;
+                continue;
+            } else {
+                literal = c;
+            }
+
+            if (literal == 0) {
+                if (current.length() > longest.length()) {
+                    longest = current.toString();
+                }
+                current.setLength(0);
+            } else {
+                current.append(literal);
+            }
+            i = next - 1;
+        }
+        if (depth > 0) {
+            return null;
+        }
+        if (current.length() > longest.length()) {
+            longest = current.toString();
+        }
+        return longest.isEmpty() ? null : longest;
+    }
+
+    /**
+     * Index of the ']' closing the character class opened at start,
+     * skipping nested classes such as [a-z&&[^aeiou]] and a ']' that is a
+     * member because it directly follows '[' or '[^'; -1 if never closed
+     */
+    private static int classEnd(String regex, int start) {
+        int depth = 0;
+        for (int i = start; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
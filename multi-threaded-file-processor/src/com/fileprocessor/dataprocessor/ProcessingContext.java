@@ -0,0 +1,139 @@
+package com.fileprocessor.dataprocessor;
+
+import com.fileprocessor.aggregator.DedupIndex;
+import com.fileprocessor.aggregator.GroupByAggregator;
+import com.fileprocessor.aggregator.ResultAggregator;
+import com.fileprocessor.model.ProcessingStats;
+
+/**
+ * Per-pipeline state shared by every DataProcessor task. Only the
+ * transformation and stats are required; build the optional parts with
+ * builder().
+ */
+public class ProcessingContext {
+    private final Transformation transformation;
+    private final FilterChain filterChain;
+    private final GroupByAggregator groupBy;
+    private final ProcessingStats stats;
+    private final ResultSink resultSink;
+    private final ResultCache resultCache;
+    private final DedupIndex dedupIndex;
+    private final DeadLetterSink deadLetterSink;
+    private final ResultAggregator sketchAggregator;
+
+    public ProcessingContext(Transformation transformation, ProcessingStats stats) {
+        this(builder(transformation, stats));
+    }
+
+    private ProcessingContext(Builder builder) {
+        this.transformation = builder.transformation;
+        this.filterChain = builder.filterChain;
+        this.groupBy = builder.groupBy;
+        this.resultSink = builder.resultSink;
+        this.resultCache = builder.resultCache;
+        this.dedupIndex = builder.dedupIndex;
+        this.deadLetterSink = builder.deadLetterSink;
+        this.sketchAggregator = builder.sketchAggregator;
+        this.stats = builder.stats;
+    }
+
+    public static Builder builder(Transformation transformation, ProcessingStats stats) {
+        return new Builder(transformation, stats);
+    }
+
+    // Getters
+    public Transformation getTransformation() { return transformation; }
+    public FilterChain getFilterChain() { return filterChain; }
+    public GroupByAggregator getGroupBy() { return groupBy; }
+    public ProcessingStats getStats() { return stats; }
+    public ResultSink getResultSink() { return resultSink; }
+    public ResultCache getResultCache() { return resultCache; }
+    public DedupIndex getDedupIndex() { return dedupIndex; }
+    public DeadLetterSink getDeadLetterSink() { return deadLetterSink; }
+    public ResultAggregator getSketchAggregator() { return sketchAggregator; }
+
+    public boolean isGroupByMode() { return groupBy != null; }
+
+    /**
+     * Optional parts of a context; each one left unset is off
+     */
+    public static class Builder {
+        private final Transformation transformation;
+        private final ProcessingStats stats;
+        private FilterChain filterChain = new FilterChain();
+        private GroupByAggregator groupBy;
+        private ResultSink resultSink;
+        private ResultCache resultCache;
+        private DedupIndex dedupIndex;
+        private DeadLetterSink deadLetterSink;
+        private ResultAggregator sketchAggregator;
+
+        private Builder(Transformation transformation, ProcessingStats stats) {
+            this.transformation = transformation;
+            this.stats = stats;
+        }
+
+        public Builder filterChain(FilterChain filterChain) {
+            this.filterChain = filterChain;
+            return this;
+        }
+
+        /**
+         * Accepted lines are folded into the group-by partials instead of
+         * producing ProcessedData
+         */
+        public Builder groupBy(GroupByAggregator groupBy) {
+            this.groupBy = groupBy;
+            return this;
+        }
+
+        /**
+         * Committed results are handed to the sink on the worker thread and
+         * the task returns an empty list
+         */
+        public Builder resultSink(ResultSink resultSink) {
+            this.resultSink = resultSink;
+            return this;
+        }
+
+        /**
+         * Chunk results are looked up before processing and stored afterwards
+         */
+        public Builder resultCache(ResultCache resultCache) {
+            this.resultCache = resultCache;
+            return this;
+        }
+
+        /**
+         * Committed results whose IDs an earlier run (or an earlier chunk of
+         * this run) produced are dropped
+         */
+        public Builder dedupIndex(DedupIndex dedupIndex) {
+            this.dedupIndex = dedupIndex;
+            return this;
+        }
+
+        /**
+         * Lines that fail to process are written to the sink in batches;
+         * without one, each chunk's failures are summarized on stderr
+         */
+        public Builder deadLetterSink(DeadLetterSink deadLetterSink) {
+            this.deadLetterSink = deadLetterSink;
+            return this;
+        }
+
+        /**
+         * Committed results returned to the pipeline have their IDs added
+         * to the aggregator's sketch on the worker thread, so the pipeline
+         * merges them with mergeSketched
+         */
+        public Builder sketchAggregator(ResultAggregator sketchAggregator) {
+            this.sketchAggregator = sketchAggregator;
+            return this;
+        }
+
+        public ProcessingContext build() {
+            return new ProcessingContext(this);
+        }
+    }
+}
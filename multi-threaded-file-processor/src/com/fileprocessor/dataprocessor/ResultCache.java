@@ -0,0 +1,194 @@
+package com.fileprocessor.dataprocessor;
+
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.filereader.Chunk;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.model.RecordCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk cache of transformed chunk results and the filter counts that
+ * produced them, keyed by a SHA-256 of the
+ * transformation identity, the chunk's source files, start lines and lines.
+ * Entries are evicted least-recently-used once the directory exceeds its
+ * size cap; recency survives restarts through file modification times.
+ * The identity string must change whenever the transformation or filter
+ * logic changes, since lambdas carry no identity of their own.
+ */
+public class ResultCache {
+    private static final String SUFFIX = ".cache";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File directory;
+    private final String identity;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ResultCache(File directory, String identity, long maxBytes) {
+        this.directory = directory;
+        this.identity = identity;
+        this.maxBytes = maxBytes;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new FileProcessingException("Cannot create cache directory: " + directory);
+        }
+        loadIndex();
+    }
+
+    /**
+     * Rebuild the LRU order from the files left by previous runs
+     */
+    private void loadIndex() {
+        File[] abandoned = directory.listFiles((dir, name) -> name.endsWith(".tmp"));
+        if (abandoned != null) {
+            Arrays.stream(abandoned).forEach(File::delete);
+        }
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            String key = file.getName().substring(0, file.getName().length() - SUFFIX.length());
+            entries.put(key, file.length());
+            totalBytes += file.length();
+        }
+        evict(); // the cap may have been lowered since the last run
+    }
+
+    public String keyFor(Chunk chunk) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(identity.getBytes(StandardCharsets.UTF_8));
+            for (Chunk.Segment segment : chunk.getSegments()) {
+                digest.update((byte) 0);
+                digest.update(segment.getSourceFile().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(Integer.toString(segment.getStartLine()).getBytes(StandardCharsets.UTF_8));
+                if (chunk.isMultiFile()) {
+                    digest.update((byte) ':');
+                    digest.update(Integer.toString(segment.getLineCount()).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            for (String line : chunk.getLines()) {
+                digest.update((byte) '\n');
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @param counters receives the filter counts stored with the entry on a hit
+     * @return cached results, or null on a miss or unreadable entry
+     */
+    public List<ProcessedData> lookup(String key, FilterChain.Counters counters) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+        }
+        File file = fileFor(key);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+            int count = in.readInt();
+            List<ProcessedData> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(RecordCodec.readRecord(in));
+            }
+            counters.read(in);
+            file.setLastModified(System.currentTimeMillis());
+            return results;
+        } catch (IOException e) {
+            // Evicted concurrently, corrupt or written before counts were cached; treat as a miss
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Store results and filter counts for a key, evicting the least
+     * recently used entries beyond the size cap
+     */
+    public void store(String key, List<ProcessedData> results, FilterChain.Counters counters) {
+        File target = fileFor(key);
+        try {
+            File temp = File.createTempFile("entry-", ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp), BUFFER_SIZE))) {
+                out.writeInt(results.size());
+                for (ProcessedData data : results) {
+                    RecordCodec.writeRecord(out, data);
+                }
+                counters.write(out);
+            }
+            try {
+                Files.move(temp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to store cache entry " + key + ": " + e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            Long previous = entries.put(key, target.length());
+            totalBytes += target.length() - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            fileFor(eldest.getKey()).delete();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+    public synchronized int getEntryCount() { return entries.size(); }
+    public synchronized long getTotalBytes() { return totalBytes; }
+    public long getMaxBytes() { return maxBytes; }
+}
@@ -0,0 +1,14 @@
+package com.fileprocessor.dataprocessor;
+
+import com.fileprocessor.model.ProcessedData;
+
+import java.util.List;
+
+/**
+ * Receives committed chunk results on the worker thread that produced them,
+ * instead of returning them to the pipeline for a central merge
+ */
+@FunctionalInterface
+public interface ResultSink {
+    void accept(List<ProcessedData> results);
+}
@@ -13,6 +13,17 @@ public interface Transformation {
     
     Transformation TRIM = (line, lineNumber, sourceFile) -> line.trim();
     
+    /**
+     * ASCII fast paths: same results as UPPERCASE, LOWERCASE and TRIM for
+     * ASCII lines without locale-sensitive mapping or a copy when nothing
+     * changes; other lines take the String methods
+     */
+    Transformation ASCII_UPPERCASE = (line, lineNumber, sourceFile) -> AsciiText.toUpperCase(line);
+    
+    Transformation ASCII_LOWERCASE = (line, lineNumber, sourceFile) -> AsciiText.toLowerCase(line);
+    
+    Transformation ASCII_TRIM = (line, lineNumber, sourceFile) -> AsciiText.trim(line);
+    
     Transformation ADD_LINE_NUMBER = (line, lineNumber, sourceFile) -> 
         String.format("[%s:%d] %s", sourceFile, lineNumber, line);
     
@@ -20,6 +31,35 @@ public interface Transformation {
         return TRIM.andThen(ADD_LINE_NUMBER);
     }
     
+    /**
+     * Look up a built-in transformation by name, for configurations that
+     * cross process boundaries and cannot carry a lambda
+     */
+    static Transformation forName(String name) {
+        switch (name.toUpperCase()) {
+            case "IDENTITY":
+                return IDENTITY;
+            case "UPPERCASE":
+                return UPPERCASE;
+            case "LOWERCASE":
+                return LOWERCASE;
+            case "TRIM":
+                return TRIM;
+            case "ASCII_UPPERCASE":
+                return ASCII_UPPERCASE;
+            case "ASCII_LOWERCASE":
+                return ASCII_LOWERCASE;
+            case "ASCII_TRIM":
+                return ASCII_TRIM;
+            case "ADD_LINE_NUMBER":
+                return ADD_LINE_NUMBER;
+            case "DEFAULT":
+                return createDefaultTransformation();
+            default:
+                throw new IllegalArgumentException("Unknown transformation: " + name);
+        }
+    }
+    
     default Transformation andThen(Transformation after) {
         return (line, lineNumber, sourceFile) -> 
             after.apply(this.apply(line, lineNumber, sourceFile), lineNumber, sourceFile);
@@ -0,0 +1,296 @@
+package com.fileprocessor.distributed;
+
+import com.fileprocessor.aggregator.ResultAggregator;
+import com.fileprocessor.config.ProcessorConfig;
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.filereader.Chunk;
+import com.fileprocessor.filereader.FileReader;
+import com.fileprocessor.manager.MemoryBudget;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.model.ProcessingStats;
+import com.fileprocessor.writer.OutputFormatter;
+import com.fileprocessor.writer.OutputWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coordinator for distributed mode. Reads the input directory, hands chunks
+ * to worker connections over TCP and merges the records they send back.
+ * A chunk whose worker disconnects or stops answering is put back at the
+ * front of the queue for the next free connection; a chunk that has lost
+ * MAX_CHUNK_ATTEMPTS workers is recorded as failed instead, so one chunk
+ * that crashes or stalls every worker cannot hold up the run forever.
+ */
+public class Coordinator {
+    private static final long POLL_MILLIS = 200;
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+    private static final String RESULTS_FILE = "results.tsv";
+
+    private final ProcessorConfig config;
+    private final int port;
+    private final String transformationName;
+    private final ProcessingStats stats;
+    private final FileReader fileReader;
+    private final ResultAggregator resultAggregator;
+    private final MemoryBudget memoryBudget;
+    private final BlockingDeque<Chunk> workQueue = new LinkedBlockingDeque<>();
+    private final AtomicInteger connectedWorkers = new AtomicInteger(0);
+    private final AtomicInteger reassignedChunks = new AtomicInteger(0);
+    private final Map<String, Integer> lostAttempts = new ConcurrentHashMap<>();
+    private final Object progressLock = new Object();
+    private int outstandingChunks;
+    private long recordsWritten;
+    private volatile boolean readingDone;
+    private volatile boolean finished;
+    private ServerSocket serverSocket;
+
+    public Coordinator(ProcessorConfig config, int port, String transformationName) {
+        this.config = config;
+        this.port = port;
+        this.transformationName = transformationName;
+        this.stats = new ProcessingStats();
+        this.fileReader = new FileReader(config, stats);
+        this.memoryBudget = new MemoryBudget(config.getChunkMemoryBudget());
+        this.resultAggregator = new ResultAggregator(
+            stats, config.isRemoveDuplicates(), config.isSortOutput(),
+            config.getAggregatorMemoryBudget(), new File(config.getOutputDirectory(), ".spill")
+        );
+    }
+
+    /**
+     * Accept workers, distribute every chunk and wait until all results are in
+     */
+    public void execute() {
+        try {
+            serverSocket = new ServerSocket(port);
+        } catch (IOException e) {
+            throw new FileProcessingException("Cannot listen on port " + port, e);
+        }
+        System.out.println("Coordinator listening on port " + serverSocket.getLocalPort());
+
+        Thread acceptor = new Thread(this::acceptWorkers, "coordinator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        try {
+            int totalChunks = fileReader.readFiles(chunk -> {
+                try {
+                    memoryBudget.acquire(chunk.getEstimatedBytes());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new FileProcessingException("Interrupted while waiting for memory budget");
+                }
+                synchronized (progressLock) {
+                    outstandingChunks++;
+                }
+                workQueue.addLast(chunk);
+            });
+            readingDone = true;
+            System.out.println("Queued " + totalChunks + " chunks for distributed processing");
+
+            awaitCompletion();
+            awaitWorkerShutdown();
+
+            File resultsFile = new File(config.getOutputDirectory(), 
+                                        config.isCompressOutput() ? RESULTS_FILE + ".gz" : RESULTS_FILE);
+            OutputWriter writer = config.isCompressOutput()
+                ? new OutputWriter(OutputFormatter.TSV, null, config.getCompressionLevel(), 
+                                   config.getCompressionBlockSize())
+                : new OutputWriter(OutputFormatter.TSV);
+            recordsWritten = writer.writeToFile(resultAggregator, resultsFile);
+            System.out.println("Distributed run complete: wrote " + recordsWritten + " records to " + 
+                             resultsFile + ", " + reassignedChunks.get() + " chunks reassigned");
+        } finally {
+            finished = true;
+            closeServer();
+            resultAggregator.deleteSpillFiles();
+        }
+    }
+
+    private void awaitCompletion() {
+        synchronized (progressLock) {
+            while (outstandingChunks > 0) {
+                try {
+                    progressLock.wait(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new FileProcessingException("Interrupted while waiting for workers");
+                }
+            }
+        }
+    }
+
+    /**
+     * Give idle connections a moment to deliver SHUTDOWN before the JVM exits
+     */
+    private void awaitWorkerShutdown() {
+        long deadline = System.currentTimeMillis() + 5 * POLL_MILLIS;
+        while (connectedWorkers.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(POLL_MILLIS / 4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void acceptWorkers() {
+        while (!finished) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread handler = new Thread(() -> serveWorker(socket), "coordinator-conn");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (SocketException e) {
+                return; // server socket closed
+            } catch (IOException e) {
+                System.err.println("Failed to accept worker: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drive one worker connection: send a chunk, wait for its result, repeat
+     */
+    private void serveWorker(Socket socket) {
+        String workerName = socket.getRemoteSocketAddress().toString();
+        Chunk inFlight = null;
+        boolean registered = false;
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+
+            s.setTcpNoDelay(true);
+            s.setSoTimeout((int) Math.min(Integer.MAX_VALUE, config.getChunkTimeoutMillis()));
+            if (in.readByte() != Protocol.HELLO) {
+                throw new IOException("Expected HELLO");
+            }
+            workerName = Protocol.readString(in);
+            Protocol.writeMessage(out, Protocol.CONFIG, transformationName);
+            registered = true;
+            System.out.println("Worker connected: " + workerName +
+                             " (" + connectedWorkers.incrementAndGet() + " connections)");
+
+            while (true) {
+                inFlight = workQueue.pollFirst(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (inFlight == null) {
+                    if (readingDone && isComplete()) {
+                        Protocol.writeMessage(out, Protocol.SHUTDOWN);
+                        return;
+                    }
+                    continue;
+                }
+
+                Protocol.writeTask(out, inFlight);
+                byte type = in.readByte();
+                String chunkId = Protocol.readString(in);
+                if (!chunkId.equals(inFlight.getChunkId())) {
+                    throw new IOException("Result for unexpected chunk " + chunkId);
+                }
+                if (type == Protocol.RESULT) {
+                    List<ProcessedData> results = Protocol.readResults(in);
+                    stats.incrementChunksProcessed();
+                    stats.addRecords(results.size());
+                    resultAggregator.mergeResults(results);
+                } else if (type == Protocol.FAILED) {
+                    stats.incrementErrorCount();
+                    System.err.println("Chunk " + chunkId + " failed on " + workerName + ": " +
+                                     Protocol.readString(in));
+                } else {
+                    throw new IOException("Unexpected message type " + type);
+                }
+                completeChunk(inFlight);
+                inFlight = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Worker " + workerName + " lost: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (registered) {
+                connectedWorkers.decrementAndGet();
+            }
+            if (inFlight != null) {
+                requeueLost(inFlight, workerName);
+            }
+        }
+    }
+
+    /**
+     * Put back a chunk whose worker was lost, or give up on it once it has
+     * been tried MAX_CHUNK_ATTEMPTS times
+     */
+    private void requeueLost(Chunk chunk, String workerName) {
+        int attempts = lostAttempts.merge(chunk.getChunkId(), 1, Integer::sum);
+        if (attempts >= MAX_CHUNK_ATTEMPTS) {
+            stats.incrementErrorCount();
+            System.err.println("Giving up on " + chunk.getChunkId() + " after " + attempts + 
+                             " lost workers; its records are missing from the output");
+            completeChunk(chunk);
+            return;
+        }
+        reassignedChunks.incrementAndGet();
+        System.out.println("Reassigning " + chunk.getChunkId() + " from " + workerName);
+        workQueue.addFirst(chunk);
+    }
+
+    private void completeChunk(Chunk chunk) {
+        lostAttempts.remove(chunk.getChunkId());
+        memoryBudget.release(chunk.getEstimatedBytes());
+        synchronized (progressLock) {
+            outstandingChunks--;
+            progressLock.notifyAll();
+        }
+    }
+
+    private boolean isComplete() {
+        synchronized (progressLock) {
+            return outstandingChunks == 0;
+        }
+    }
+
+    private void closeServer() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            // Already closing down
+        }
+    }
+
+    public int getPort() {
+        return serverSocket == null ? port : serverSocket.getLocalPort();
+    }
+
+    public ProcessingStats getStats() {
+        return stats;
+    }
+
+    public ResultAggregator getResultAggregator() {
+        return resultAggregator;
+    }
+
+    /**
+     * Records written to the results file by the last execute()
+     */
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+}
@@ -0,0 +1,115 @@
+package com.fileprocessor.distributed;
+
+import com.fileprocessor.filereader.Chunk;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.model.RecordCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wire format shared by coordinator and workers. Every message starts with
+ * a one-byte type; strings are length-prefixed UTF-8 so lines longer than
+ * 64 KB survive the trip.
+ *
+ * <pre>
+ * worker      -> coordinator  HELLO    workerName
+ * coordinator -> worker       CONFIG   transformationName
+ * coordinator -> worker       TASK     chunkId segmentCount (sourceFile startLine lineCount)* line*
+ * worker      -> coordinator  RESULT   chunkId recordCount (id content timestamp)*
+ * worker      -> coordinator  FAILED   chunkId message
+ * coordinator -> worker       SHUTDOWN
+ * </pre>
+ */
+public final class Protocol {
+    public static final byte HELLO = 1;
+    public static final byte CONFIG = 2;
+    public static final byte TASK = 3;
+    public static final byte RESULT = 4;
+    public static final byte FAILED = 5;
+    public static final byte SHUTDOWN = 6;
+
+    private Protocol() {}
+
+    public static void writeTask(DataOutputStream out, Chunk chunk) throws IOException {
+        out.writeByte(TASK);
+        writeString(out, chunk.getChunkId());
+        List<Chunk.Segment> segments = chunk.getSegments();
+        out.writeInt(segments.size());
+        for (Chunk.Segment segment : segments) {
+            writeString(out, segment.getSourceFile());
+            out.writeInt(segment.getStartLine());
+            out.writeInt(segment.getLineCount());
+        }
+        for (String line : chunk.getLines()) {
+            writeString(out, line);
+        }
+        out.flush();
+    }
+
+    /**
+     * Read the body of a TASK message (type byte already consumed)
+     */
+    public static Chunk readTask(DataInputStream in) throws IOException {
+        String chunkId = readString(in);
+        int segmentCount = in.readInt();
+        List<Chunk.Segment> segments = new ArrayList<>(segmentCount);
+        int count = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            Chunk.Segment segment = new Chunk.Segment(readString(in), in.readInt(), in.readInt());
+            segments.add(segment);
+            count += segment.getLineCount();
+        }
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(readString(in));
+        }
+        if (segmentCount == 1) {
+            Chunk.Segment only = segments.get(0);
+            return new Chunk(chunkId, only.getSourceFile(), lines, only.getStartLine(), only.getEndLine());
+        }
+        return new Chunk(chunkId, segments, lines);
+    }
+
+    public static void writeResult(DataOutputStream out, String chunkId, 
+                                   List<ProcessedData> results) throws IOException {
+        out.writeByte(RESULT);
+        writeString(out, chunkId);
+        out.writeInt(results.size());
+        for (ProcessedData data : results) {
+            RecordCodec.writeRecord(out, data);
+        }
+        out.flush();
+    }
+
+    /**
+     * Read the record list of a RESULT message (type byte and chunk ID already consumed)
+     */
+    public static List<ProcessedData> readResults(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<ProcessedData> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(RecordCodec.readRecord(in));
+        }
+        return results;
+    }
+
+    public static void writeMessage(DataOutputStream out, byte type, String... fields) throws IOException {
+        out.writeByte(type);
+        for (String field : fields) {
+            writeString(out, field);
+        }
+        out.flush();
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        RecordCodec.writeString(out, value);
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        return RecordCodec.readString(in);
+    }
+}
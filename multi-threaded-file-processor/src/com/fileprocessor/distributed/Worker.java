@@ -0,0 +1,99 @@
+package com.fileprocessor.distributed;
+
+import com.fileprocessor.dataprocessor.DataProcessor;
+import com.fileprocessor.dataprocessor.ProcessingContext;
+import com.fileprocessor.dataprocessor.Transformation;
+import com.fileprocessor.filereader.Chunk;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.model.ProcessingStats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Worker process for distributed mode. Opens one connection per thread to
+ * the coordinator and runs every chunk it receives through the regular
+ * DataProcessor/Transformation path, streaming the records back.
+ */
+public class Worker {
+    private final String host;
+    private final int port;
+    private final int threads;
+    private final String workerName;
+    private final ProcessingStats stats = new ProcessingStats();
+
+    public Worker(String host, int port, int threads) {
+        this.host = host;
+        this.port = port;
+        this.threads = threads;
+        this.workerName = ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    /**
+     * Serve tasks until the coordinator sends SHUTDOWN or goes away
+     */
+    public void run() throws InterruptedException {
+        List<Thread> connections = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String name = workerName + "#" + i;
+            Thread thread = new Thread(() -> serve(name), "worker-" + i);
+            thread.start();
+            connections.add(thread);
+        }
+        for (Thread thread : connections) {
+            thread.join();
+        }
+        System.out.println("Worker " + workerName + " finished: " + stats.getChunksProcessed() +
+                         " chunks, " + stats.getTotalRecords() + " records");
+    }
+
+    private void serve(String name) {
+        try (Socket socket = new Socket(host, port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+
+            socket.setTcpNoDelay(true);
+            Protocol.writeMessage(out, Protocol.HELLO, name);
+
+            if (in.readByte() != Protocol.CONFIG) {
+                throw new IOException("Expected CONFIG from coordinator");
+            }
+            ProcessingContext context = new ProcessingContext(
+                Transformation.forName(Protocol.readString(in)), stats);
+
+            while (true) {
+                byte type = in.readByte();
+                if (type == Protocol.SHUTDOWN) {
+                    return;
+                }
+                if (type != Protocol.TASK) {
+                    throw new IOException("Unexpected message type " + type);
+                }
+                Chunk chunk = Protocol.readTask(in);
+                try {
+                    List<ProcessedData> results = new DataProcessor(chunk, context).call();
+                    Protocol.writeResult(out, chunk.getChunkId(), results);
+                } catch (Exception e) {
+                    String message = e.getCause() != null ? e.getCause().toString() : e.toString();
+                    Protocol.writeMessage(out, Protocol.FAILED, chunk.getChunkId(), message);
+                }
+            }
+        } catch (EOFException e) {
+            System.out.println(name + ": coordinator closed the connection");
+        } catch (IOException e) {
+            System.err.println(name + ": connection to " + host + ":" + port + " failed: " + e.getMessage());
+        }
+    }
+
+    public ProcessingStats getStats() {
+        return stats;
+    }
+}
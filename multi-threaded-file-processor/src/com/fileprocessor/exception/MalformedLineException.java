@@ -0,0 +1,14 @@
+package com.fileprocessor.exception;
+
+/**
+ * A line whose fields cannot be extracted. Thrown once per bad line on the
+ * processing hot path, so it carries no stack trace; only its message is
+ * reported.
+ */
+public class MalformedLineException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public MalformedLineException(String message) {
+        super(message, null, false, false);
+    }
+}
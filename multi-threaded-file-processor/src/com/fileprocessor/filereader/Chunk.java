@@ -1,6 +1,7 @@
 package com.fileprocessor.filereader;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Chunk {
@@ -9,27 +10,117 @@ public class Chunk {
     private final List<String> lines;
     private final int startLine;
     private final int endLine;
-    
-    public Chunk(String chunkId, String sourceFile, List<String> lines, 
+    private final List<Segment> segments;
+    private final long estimatedBytes;
+    private final long sequence;
+
+    public Chunk(String chunkId, String sourceFile, List<String> lines,
                  int startLine, int endLine) {
+        this(chunkId, sourceFile, lines, startLine, endLine, -1);
+    }
+
+    /**
+     * @param sequence position of the chunk in input order, counted from 0
+     *                 in the order chunks are created; -1 if unknown
+     */
+    public Chunk(String chunkId, String sourceFile, List<String> lines,
+                 int startLine, int endLine, long sequence) {
         this.chunkId = chunkId;
         this.sourceFile = sourceFile;
         this.lines = new ArrayList<>(lines);
         this.startLine = startLine;
         this.endLine = endLine;
+        this.segments = Collections.singletonList(new Segment(sourceFile, startLine, this.lines.size()));
+        this.estimatedBytes = estimateBytes(this.lines);
+        this.sequence = sequence;
+    }
+
+    /**
+     * Multi-file chunk packing several small files (or file tails) together.
+     * Lines are the concatenation of the segments' lines, in segment order.
+     */
+    public Chunk(String chunkId, List<Segment> segments, List<String> lines) {
+        this(chunkId, segments, lines, -1);
+    }
+
+    public Chunk(String chunkId, List<Segment> segments, List<String> lines, long sequence) {
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("A chunk needs at least one segment");
+        }
+        int segmentLines = 0;
+        for (Segment segment : segments) {
+            segmentLines += segment.getLineCount();
+        }
+        if (segmentLines != lines.size()) {
+            throw new IllegalArgumentException(
+                "Segments cover " + segmentLines + " lines but chunk has " + lines.size());
+        }
+        Segment first = segments.get(0);
+        this.chunkId = chunkId;
+        this.sourceFile = first.getSourceFile();
+        this.lines = new ArrayList<>(lines);
+        this.startLine = first.getStartLine();
+        this.endLine = first.getEndLine();
+        this.segments = Collections.unmodifiableList(new ArrayList<>(segments));
+        this.estimatedBytes = estimateBytes(this.lines);
+        this.sequence = sequence;
     }
-    
+
+    /**
+     * Rough heap footprint of the chunk's lines: String header plus
+     * backing array per line, assuming the worst case of UTF-16 storage
+     */
+    private static long estimateBytes(List<String> lines) {
+        long bytes = 64;
+        for (String line : lines) {
+            bytes += 56 + 2L * line.length();
+        }
+        return bytes;
+    }
+
     // Getters
     public String getChunkId() { return chunkId; }
+    /** Source file of the first segment */
     public String getSourceFile() { return sourceFile; }
     public List<String> getLines() { return new ArrayList<>(lines); }
+    /** Start line of the first segment */
     public int getStartLine() { return startLine; }
+    /** End line of the first segment */
     public int getEndLine() { return endLine; }
     public int getSize() { return lines.size(); }
-    
+    public long getEstimatedBytes() { return estimatedBytes; }
+    public List<Segment> getSegments() { return segments; }
+    public boolean isMultiFile() { return segments.size() > 1; }
+    /** Position in input order, or -1 if the chunk was not numbered */
+    public long getSequence() { return sequence; }
+
     @Override
     public String toString() {
-        return String.format("Chunk[%s] from %s [lines %d-%d]", 
+        if (isMultiFile()) {
+            return String.format("Chunk[%s] from %d files starting at %s",
+                               chunkId, segments.size(), sourceFile);
+        }
+        return String.format("Chunk[%s] from %s [lines %d-%d]",
                            chunkId, sourceFile, startLine, endLine);
     }
+
+    /**
+     * Consecutive run of lines from one source file within a chunk
+     */
+    public static class Segment {
+        private final String sourceFile;
+        private final int startLine;
+        private final int lineCount;
+
+        public Segment(String sourceFile, int startLine, int lineCount) {
+            this.sourceFile = sourceFile;
+            this.startLine = startLine;
+            this.lineCount = lineCount;
+        }
+
+        public String getSourceFile() { return sourceFile; }
+        public int getStartLine() { return startLine; }
+        public int getLineCount() { return lineCount; }
+        public int getEndLine() { return startLine + lineCount - 1; }
+    }
 }
@@ -0,0 +1,192 @@
+package com.fileprocessor.filereader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel directory scan that streams valid files to a queue as they are
+ * found, so chunking can start before the scan finishes. Each directory is
+ * a fork/join task that reads every entry's attributes with a single
+ * readAttributes call and forks subdirectories when scanning recursively.
+ * Symbolic links are followed like the files and directories they point
+ * to, except links back to a directory being scanned, which would loop;
+ * those and broken links are counted and skipped.
+ */
+public class FileDiscovery {
+    private final FileValidator validator;
+    private final boolean recursive;
+    private final int parallelism;
+    private final AtomicLong entriesScanned = new AtomicLong(0);
+    private final AtomicLong directoriesScanned = new AtomicLong(0);
+    private final AtomicLong linksSkipped = new AtomicLong(0);
+    private volatile IOException rootFailure;
+
+    public FileDiscovery(FileValidator validator, boolean recursive, int parallelism) {
+        this.validator = validator;
+        this.recursive = recursive;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Start scanning in the background
+     *
+     * @return queue of discovered files, terminated by DiscoveredFile.END
+     */
+    public BlockingQueue<DiscoveredFile> start(Path root) {
+        BlockingQueue<DiscoveredFile> queue = new LinkedBlockingQueue<>();
+        Thread scanner = new Thread(() -> {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new DirectoryTask(root, root, queue, Set.of()));
+            } finally {
+                pool.shutdown();
+                queue.add(DiscoveredFile.END);
+            }
+        }, "file-discovery");
+        scanner.setDaemon(true);
+        scanner.start();
+        return queue;
+    }
+
+    /**
+     * Failure to list the input directory itself, if any
+     */
+    public IOException getRootFailure() { return rootFailure; }
+    public long getEntriesScanned() { return entriesScanned.get(); }
+    public long getDirectoriesScanned() { return directoriesScanned.get(); }
+    
+    /**
+     * Broken links and links to a directory already being scanned above them
+     */
+    public long getLinksSkipped() { return linksSkipped.get(); }
+
+    /**
+     * Scan one directory, forking a task per subdirectory
+     */
+    private class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path root;
+        private final Path directory;
+        private final BlockingQueue<DiscoveredFile> queue;
+        private final boolean isRoot;
+        private final Set<Object> ancestors; // keys of the directories above this one
+
+        DirectoryTask(Path root, Path directory, BlockingQueue<DiscoveredFile> queue, Set<Object> ancestors) {
+            this.root = root;
+            this.directory = directory;
+            this.queue = queue;
+            this.isRoot = ancestors.isEmpty();
+            this.ancestors = ancestors;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            Set<Object> path = null;
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                directoriesScanned.incrementAndGet();
+                for (Path entry : entries) {
+                    entriesScanned.incrementAndGet();
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, 
+                                                          LinkOption.NOFOLLOW_LINKS);
+                        if (attributes.isSymbolicLink()) {
+                            attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                        }
+                    } catch (IOException e) {
+                        if (Files.isSymbolicLink(entry)) {
+                            linksSkipped.incrementAndGet();
+                        }
+                        continue; // vanished or unreadable entry, or a broken link
+                    }
+                    if (attributes.isDirectory()) {
+                        if (recursive) {
+                            if (path == null) {
+                                path = new HashSet<>(ancestors);
+                                path.add(directoryKey(directory));
+                            }
+                            if (path.contains(directoryKey(entry, attributes))) {
+                                // a link back to a directory above; following it would never end
+                                linksSkipped.incrementAndGet();
+                                continue;
+                            }
+                            DirectoryTask subtask = new DirectoryTask(root, entry, queue, path);
+                            subtask.fork();
+                            subtasks.add(subtask);
+                        }
+                    } else {
+                        if (validator.isValidFile(entry, attributes)) {
+                            queue.add(new DiscoveredFile(entry, 
+                                root.relativize(entry).toString(), attributes.size()));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (isRoot) {
+                    rootFailure = e;
+                } else {
+                    System.err.println("Skipping unreadable directory " + directory + ": " + e.getMessage());
+                }
+            }
+            for (DirectoryTask subtask : subtasks) {
+                subtask.join();
+            }
+        }
+    }
+
+    /**
+     * Identity of a directory however it was reached: its file key (device
+     * and inode) where the file system has one, its real path otherwise
+     */
+    private static Object directoryKey(Path directory, BasicFileAttributes attributes) throws IOException {
+        Object key = attributes.fileKey();
+        return key != null ? key : directory.toRealPath();
+    }
+
+    private static Object directoryKey(Path directory) throws IOException {
+        return directoryKey(directory, Files.readAttributes(directory, BasicFileAttributes.class));
+    }
+
+    /**
+     * A file accepted by the scan along with the attributes already read for it
+     */
+    public static class DiscoveredFile {
+        static final DiscoveredFile END = new DiscoveredFile(null, null, -1);
+
+        private final Path path;
+        private final String relativeName;
+        private final long size;
+
+        DiscoveredFile(Path path, String relativeName, long size) {
+            this.path = path;
+            this.relativeName = relativeName;
+            this.size = size;
+        }
+
+        public Path getPath() { return path; }
+        public File toFile() { return path.toFile(); }
+        public long getSize() { return size; }
+        
+        /**
+         * Path relative to the input directory; equal to the file name for
+         * top-level files, so record IDs of flat inputs are unchanged
+         */
+        public String getRelativeName() { return relativeName; }
+    }
+}
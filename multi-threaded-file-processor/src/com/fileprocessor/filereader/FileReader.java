@@ -3,26 +3,34 @@ package com.fileprocessor.filereader;
 import com.fileprocessor.config.ProcessorConfig;
 import com.fileprocessor.exception.FileProcessingException;
 import com.fileprocessor.model.ProcessingStats;
+import com.fileprocessor.model.StageStats;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class FileReader {
     private final ProcessorConfig config;
     private final FileValidator fileValidator;
     private final ProcessingStats stats;
     private final AtomicInteger chunkCounter = new AtomicInteger(0);
+    // One read-ahead ring per reader thread, kept across files and across
+    // readers, so long-lived threads such as a daemon's keep their buffers
+    private static final ThreadLocal<ByteBuffer[]> READ_BUFFERS = new ThreadLocal<>();
 
     public FileReader(ProcessorConfig config, ProcessingStats stats) {
         this.config = config;
@@ -30,10 +38,56 @@ public class FileReader {
         this.fileValidator = new FileValidator(config.getFilePattern());
     }
 
+    /**
+     * This thread's read-ahead ring, reallocated only when the configured
+     * buffer count or size differs from the one it holds
+     */
+    private ByteBuffer[] readBuffers() {
+        ByteBuffer[] ring = READ_BUFFERS.get();
+        int count = Math.max(1, config.getReadAheadBuffers());
+        if (ring == null || ring.length != count || ring[0].capacity() != config.getReadBufferSize()) {
+            ring = new ByteBuffer[count];
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = ByteBuffer.allocateDirect(config.getReadBufferSize());
+            }
+            READ_BUFFERS.set(ring);
+        }
+        return ring;
+    }
+
     /**
      * Read all files from input directory and split into processing tasks
      */
     public List<Chunk> readFiles() {
+        List<Chunk> allChunks = new ArrayList<>();
+        readFiles(allChunks::add);
+        return allChunks;
+    }
+
+    /**
+     * Read all files from input directory, handing each chunk to the consumer
+     * as soon as it is created. The consumer may block to apply back-pressure.
+     * Files are chunked as the parallel directory scan finds them, so work
+     * starts before discovery of a large tree has finished.
+     *
+     * @return number of chunks produced
+     */
+    public int readFiles(Consumer<Chunk> chunkConsumer) {
+        return readFiles(chunkConsumer, null, 1);
+    }
+
+    /**
+     * Read files on a separate I/O stage. Each of the given number of reader
+     * loops runs on the I/O executor, pulls files from discovery and puts
+     * chunks on a bounded hand-off queue; the calling thread takes chunks off
+     * that queue and passes them to the consumer. A slow consumer therefore
+     * stalls the readers once the queue is full instead of piling up chunks.
+     *
+     * @param ioExecutor executor for the reader loops, or null to read on
+     *                   the calling thread
+     * @return number of chunks produced
+     */
+    public int readFiles(Consumer<Chunk> chunkConsumer, ExecutorService ioExecutor, int readers) {
         File inputDir = new File(config.getInputDirectory());
         
         if (!inputDir.exists() || !inputDir.isDirectory()) {
@@ -41,49 +95,215 @@ public class FileReader {
                 "Input directory does not exist or is not a directory: " + config.getInputDirectory());
         }
 
-        try {
-            List<File> validFiles = Files.list(Paths.get(config.getInputDirectory()))
-                    .map(Path::toFile)
-                    .filter(fileValidator::isValidFile)
-                    .collect(Collectors.toList());
+        FileDiscovery discovery = new FileDiscovery(
+            fileValidator, config.isRecursiveDiscovery(), config.getDiscoveryParallelism());
+        BlockingQueue<FileDiscovery.DiscoveredFile> discovered = discovery.start(inputDir.toPath());
 
-            if (validFiles.isEmpty()) {
-                throw new FileProcessingException(
-                    "No valid files found in directory: " + config.getInputDirectory());
+        ChunkPacker packer = config.isCoalesceSmallFiles() ? new ChunkPacker() : null;
+        ReadProgress progress = new ReadProgress();
+        try {
+            if (config.isOrderedOutput()) {
+                // chunk sequence numbers must follow file and line order
+                discovered = orderByName(discovered);
+                readers = 1;
+            } else if (config.isLargestFirst()) {
+                discovered = orderLargestFirst(discovered);
             }
+            if (ioExecutor == null) {
+                readLoop(discovered, chunkConsumer, packer, progress);
+            } else {
+                readOnStage(discovered, chunkConsumer, packer, progress, ioExecutor, Math.max(1, readers));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileProcessingException("Interrupted while reading input files");
+        }
+        if (packer != null) {
+            progress.chunks.addAndGet(packer.flush(chunkConsumer));
+        }
+
+        if (discovery.getRootFailure() != null) {
+            throw new FileProcessingException(
+                "Failed to read input directory: " + config.getInputDirectory(), discovery.getRootFailure());
+        }
+        if (progress.files.get() == 0) {
+            throw new FileProcessingException(
+                "No valid files found in directory: " + config.getInputDirectory());
+        }
+        System.out.println("Discovered " + progress.files.get() + " files (" + discovery.getEntriesScanned() + 
+                         " entries in " + discovery.getDirectoriesScanned() + " directories" + 
+                         (discovery.getLinksSkipped() > 0 
+                             ? ", skipped " + discovery.getLinksSkipped() + " broken or looping links" : "") + ")");
+        return progress.chunks.get();
+    }
 
-            List<Chunk> allChunks = new ArrayList<>();
-            for (File file : validFiles) {
+    /**
+     * Run the reader loops on the I/O executor and forward their chunks to
+     * the consumer on the calling thread
+     */
+    private void readOnStage(BlockingQueue<FileDiscovery.DiscoveredFile> discovered,
+                             Consumer<Chunk> chunkConsumer, ChunkPacker packer, ReadProgress progress,
+                             ExecutorService ioExecutor, int readers) throws InterruptedException {
+        BlockingQueue<Chunk> handoff = new ArrayBlockingQueue<>(Math.max(1, config.getHandoffQueueCapacity()));
+        StageStats ioStage = stats.stage("io");
+        ioStage.setThreads(readers);
+        AtomicInteger activeReaders = new AtomicInteger(readers);
+
+        for (int i = 0; i < readers; i++) {
+            ioExecutor.execute(() -> {
                 try {
-                    List<Chunk> fileChunks = processFile(file);
-                    allChunks.addAll(fileChunks);
-                    stats.incrementFilesProcessed();
-                } catch (IOException e) {
-                    throw new FileProcessingException(
-                        "Failed to process file: " + file.getName(), e);
+                    readLoop(discovered, chunk -> handOff(handoff, chunk, progress, ioStage), packer, progress);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    // Files this reader had not read yet would otherwise go missing without an error
+                    progress.fail(new FileProcessingException("Interrupted while reading files"));
+                } catch (RuntimeException e) {
+                    progress.fail(e);
+                } finally {
+                    if (activeReaders.decrementAndGet() == 0) {
+                        handoff.offer(END_OF_INPUT); // room is guaranteed once the consumer drains
+                        progress.readersDone = true;
+                    }
+                }
+            });
+        }
+
+        try {
+            while (true) {
+                Chunk chunk = handoff.poll(100, TimeUnit.MILLISECONDS);
+                if (chunk == END_OF_INPUT || (chunk == null && progress.readersDone && handoff.isEmpty())) {
+                    break;
+                }
+                if (chunk != null) {
+                    chunkConsumer.accept(chunk);
                 }
             }
+        } finally {
+            progress.stopped = true; // unblocks readers if the consumer failed
+        }
+        if (progress.failure != null) {
+            throw progress.failure;
+        }
+    }
 
-            return allChunks;
-        } catch (IOException e) {
-            throw new FileProcessingException(
-                "Failed to read input directory: " + config.getInputDirectory(), e);
+    /**
+     * Put a chunk on the hand-off queue, giving up if the run was stopped
+     */
+    private void handOff(BlockingQueue<Chunk> handoff, Chunk chunk, ReadProgress progress, StageStats ioStage) {
+        long start = System.nanoTime();
+        try {
+            while (!handoff.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (progress.stopped) {
+                    throw new FileProcessingException("Reading stopped");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileProcessingException("Interrupted while handing off chunks");
+        } finally {
+            long blocked = System.nanoTime() - start;
+            ioStage.recordBlocked(blocked);
+            progress.blockedNanos.get()[0] += blocked;
+        }
+    }
+
+    /**
+     * Read discovered files until discovery is exhausted or another loop failed
+     */
+    private void readLoop(BlockingQueue<FileDiscovery.DiscoveredFile> discovered, Consumer<Chunk> sink,
+                          ChunkPacker packer, ReadProgress progress) throws InterruptedException {
+        StageStats ioStage = stats.stage("io");
+        long[] blocked = progress.blockedNanos.get();
+        FileDiscovery.DiscoveredFile file;
+        while (!progress.stopped && progress.failure == null 
+                && (file = discovered.take()) != FileDiscovery.DiscoveredFile.END) {
+            long start = System.nanoTime();
+            long blockedBefore = blocked[0];
+            try {
+                progress.chunks.addAndGet(processFile(file.toFile(), file.getRelativeName(), sink, packer));
+                stats.incrementFilesProcessed();
+                progress.files.incrementAndGet();
+            } catch (IOException e) {
+                throw new FileProcessingException(
+                    "Failed to process file: " + file.getRelativeName(), e);
+            } finally {
+                ioStage.recordTask(System.nanoTime() - start - (blocked[0] - blockedBefore));
+            }
         }
+        discovered.add(FileDiscovery.DiscoveredFile.END); // let the other loops see the end too
+    }
+
+    /**
+     * Wait for discovery to finish and reorder the files longest processing
+     * time first, so the biggest files are read while the pool still has
+     * other work and small files (packed, when coalescing) fill the tail
+     */
+    private BlockingQueue<FileDiscovery.DiscoveredFile> orderLargestFirst(
+            BlockingQueue<FileDiscovery.DiscoveredFile> discovered) throws InterruptedException {
+        List<FileDiscovery.DiscoveredFile> files = new ArrayList<>();
+        FileDiscovery.DiscoveredFile file;
+        while ((file = discovered.take()) != FileDiscovery.DiscoveredFile.END) {
+            files.add(file);
+        }
+        files.sort(Comparator
+            .comparingLong((FileDiscovery.DiscoveredFile f) -> estimateProcessingTime(f.getSize()))
+            .thenComparingLong(FileDiscovery.DiscoveredFile::getSize)
+            .reversed());
+
+        long estimatedMillis = 0;
+        for (FileDiscovery.DiscoveredFile f : files) {
+            estimatedMillis += estimateProcessingTime(f.getSize());
+        }
+        System.out.println("Scheduling " + files.size() + " files largest first (estimated " + 
+                         estimatedMillis + " ms)");
+
+        BlockingQueue<FileDiscovery.DiscoveredFile> ordered = new LinkedBlockingQueue<>(files);
+        ordered.add(FileDiscovery.DiscoveredFile.END);
+        return ordered;
+    }
+
+    /**
+     * Wait for discovery to finish and order the files by their relative
+     * name, which defines input order for ordered output
+     */
+    private BlockingQueue<FileDiscovery.DiscoveredFile> orderByName(
+            BlockingQueue<FileDiscovery.DiscoveredFile> discovered) throws InterruptedException {
+        List<FileDiscovery.DiscoveredFile> files = new ArrayList<>();
+        FileDiscovery.DiscoveredFile file;
+        while ((file = discovered.take()) != FileDiscovery.DiscoveredFile.END) {
+            files.add(file);
+        }
+        files.sort(Comparator.comparing(FileDiscovery.DiscoveredFile::getRelativeName));
+        BlockingQueue<FileDiscovery.DiscoveredFile> ordered = new LinkedBlockingQueue<>(files);
+        ordered.add(FileDiscovery.DiscoveredFile.END);
+        return ordered;
     }
 
     /**
      * Process a single file and split into chunks
      */
     private List<Chunk> processFile(File file) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        processFile(file, file.getName(), chunks::add, null);
+        return chunks;
+    }
+
+    /**
+     * Process a single file, emitting chunks as they fill up
+     *
+     * @param packer if not null, the partial last chunk of the file is handed
+     *               to the packer instead of becoming a chunk of its own
+     */
+    private int processFile(File file, String sourceName, Consumer<Chunk> chunkConsumer,
+                            ChunkPacker packer) throws IOException {
         validateFormat(file);
         
-        List<Chunk> chunks = new ArrayList<>();
+        int chunkCount = 0;
         List<String> currentChunkLines = new ArrayList<>();
         int lineNumber = 0;
         int chunkStartLine = 1;
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+        try (PrefetchingLineReader reader = new PrefetchingLineReader(file.toPath(), readBuffers())) {
             
             String line;
             while ((line = reader.readLine()) != null) {
@@ -91,31 +311,105 @@ public class FileReader {
                 currentChunkLines.add(line);
 
                 if (currentChunkLines.size() >= config.getChunkSize()) {
-                    Chunk chunk = createChunk(file, currentChunkLines, chunkStartLine, lineNumber);
-                    chunks.add(chunk);
+                    if (packer != null && chunkCount == 0 && config.isOrderedOutput()) {
+                        // earlier files' packed tails must be numbered before this file's lines
+                        chunkCount += packer.flush(chunkConsumer);
+                    }
+                    Chunk chunk = createChunk(sourceName, currentChunkLines, chunkStartLine, lineNumber);
+                    chunkConsumer.accept(chunk);
+                    chunkCount++;
                     currentChunkLines.clear();
                     chunkStartLine = lineNumber + 1;
                 }
             }
 
             // Add remaining lines as the last chunk
-            if (!currentChunkLines.isEmpty()) {
-                Chunk chunk = createChunk(file, currentChunkLines, chunkStartLine, lineNumber);
-                chunks.add(chunk);
+            if (!currentChunkLines.isEmpty() && packer != null) {
+                chunkCount += packer.add(sourceName, chunkStartLine, currentChunkLines, chunkConsumer);
+            } else if (!currentChunkLines.isEmpty()) {
+                Chunk chunk = createChunk(sourceName, currentChunkLines, chunkStartLine, lineNumber);
+                chunkConsumer.accept(chunk);
+                chunkCount++;
             }
         }
 
-        return chunks;
+        return chunkCount;
     }
 
     /**
-     * Create a chunk with unique ID and metadata
+     * Create a chunk with unique ID and metadata. Chunks are numbered in the
+     * order they are created, which with a single reader is input order.
      */
-    private Chunk createChunk(File file, List<String> lines, int startLine, int endLine) {
-        String chunkId = String.format("chunk-%d-%d", 
-            System.currentTimeMillis(), chunkCounter.incrementAndGet());
-        
-        return new Chunk(chunkId, file.getName(), lines, startLine, endLine);
+    private Chunk createChunk(String sourceName, List<String> lines, int startLine, int endLine) {
+        int sequence = chunkCounter.getAndIncrement();
+        return new Chunk(chunkId(sequence), sourceName, lines, startLine, endLine, sequence);
+    }
+
+    private Chunk createChunk(List<Chunk.Segment> segments, List<String> lines) {
+        int sequence = chunkCounter.getAndIncrement();
+        return new Chunk(chunkId(sequence), segments, lines, sequence);
+    }
+
+    private String chunkId(int sequence) {
+        return "chunk-" + System.currentTimeMillis() + "-" + (sequence + 1);
+    }
+
+    private static final Chunk END_OF_INPUT = new Chunk("end-of-input", "", new ArrayList<>(), 0, 0);
+
+    /**
+     * Counters and failure state shared by the reader loops of one run
+     */
+    private static class ReadProgress {
+        private final AtomicInteger files = new AtomicInteger(0);
+        private final AtomicInteger chunks = new AtomicInteger(0);
+        private final ThreadLocal<long[]> blockedNanos = ThreadLocal.withInitial(() -> new long[1]);
+        private volatile RuntimeException failure;
+        private volatile boolean stopped;
+        private volatile boolean readersDone;
+
+        synchronized void fail(RuntimeException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Packs the tails of files (whole files, when they are small) into shared
+     * multi-file chunks of up to chunkSize lines, so that many tiny files do
+     * not each pay the per-task overhead. Segments are never split, so every
+     * line keeps its source file and line number.
+     */
+    private class ChunkPacker {
+        private final List<Chunk.Segment> segments = new ArrayList<>();
+        private final List<String> lines = new ArrayList<>();
+
+        synchronized int add(String sourceName, int startLine, List<String> segmentLines, Consumer<Chunk> chunkConsumer) {
+            int emitted = 0;
+            if (!lines.isEmpty() && lines.size() + segmentLines.size() > config.getChunkSize()) {
+                emitted = flush(chunkConsumer);
+            }
+            segments.add(new Chunk.Segment(sourceName, startLine, segmentLines.size()));
+            lines.addAll(segmentLines);
+            if (lines.size() >= config.getChunkSize()) {
+                emitted += flush(chunkConsumer);
+            }
+            return emitted;
+        }
+
+        synchronized int flush(Consumer<Chunk> chunkConsumer) {
+            if (lines.isEmpty()) {
+                return 0;
+            }
+            Chunk chunk = segments.size() == 1
+                ? createChunk(segments.get(0).getSourceFile(), lines, 
+                              segments.get(0).getStartLine(), segments.get(0).getEndLine())
+                : createChunk(segments, lines);
+            segments.clear();
+            lines.clear();
+            chunkConsumer.accept(chunk);
+            return 1;
+        }
     }
 
     /**
@@ -210,7 +504,13 @@ public class FileReader {
      * Estimate processing time based on file size and configuration
      */
     public long estimateProcessingTime(File file) {
-        long fileSize = file.length();
+        return estimateProcessingTime(file.length());
+    }
+
+    /**
+     * Estimate processing time from a file size that is already known
+     */
+    public long estimateProcessingTime(long fileSize) {
         int chunks = (int) Math.ceil((double) fileSize / (config.getChunkSize() * 100)); // rough estimate
         return chunks * 100L / config.getThreadPoolSize(); // milliseconds estimate
     }
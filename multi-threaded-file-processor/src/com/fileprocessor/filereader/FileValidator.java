@@ -2,13 +2,22 @@
 package com.fileprocessor.filereader;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 public class FileValidator {
+    // Compiled once per JVM; a daemon validates the same patterns job after job
+    private static final Map<String, Pattern> COMPILED_PATTERNS = new ConcurrentHashMap<>();
+
     private final Pattern filePattern;
     
     public FileValidator(String pattern) {
-        this.filePattern = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+        this.filePattern = COMPILED_PATTERNS.computeIfAbsent(pattern,
+            p -> Pattern.compile(p, Pattern.CASE_INSENSITIVE));
     }
     
     public boolean isValidFile(File file) {
@@ -23,6 +32,22 @@ public class FileValidator {
         }
     }
     
+    /**
+     * Validate using attributes that were already read in bulk; only files
+     * that pass the cheap checks cost an access check for readability
+     */
+    public boolean isValidFile(Path path, BasicFileAttributes attributes) {
+        String fileName = path.getFileName().toString();
+        if (!attributes.isRegularFile() || attributes.size() == 0 || !filePattern.matcher(fileName).matches()) {
+            return false;
+        }
+        if (!Files.isReadable(path)) {
+            System.err.println("File validation failed for " + fileName + ": Cannot read file: " + path);
+            return false;
+        }
+        return true;
+    }
+    
     private void validateFileExists(File file) {
         if (!file.exists()) {
             throw new IllegalArgumentException("File does not exist: " + file.getPath());
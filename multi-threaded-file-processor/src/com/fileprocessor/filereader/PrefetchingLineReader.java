@@ -0,0 +1,242 @@
+package com.fileprocessor.filereader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Line reader over an AsynchronousFileChannel with read-ahead into a ring
+ * of caller-owned buffers. Every buffer in the ring has a read in flight
+ * except the one being split into lines, so the device keeps streaming
+ * while lines are decoded. Line terminators match BufferedReader.readLine:
+ * '\n', '\r' or "\r\n". Lines are decoded as UTF-8 with malformed input
+ * replaced, as InputStreamReader does.
+ *
+ * Terminators are found eight bytes at a time with SWAR arithmetic on
+ * little-endian longs, and the same words tell whether a line is pure
+ * ASCII; such lines are copied straight into a Latin-1 String instead of
+ * going through the UTF-8 decoder.
+ */
+public class PrefetchingLineReader implements Closeable {
+    private final AsynchronousFileChannel channel;
+    private final ByteBuffer[] ring;
+    private final long[] ringPositions;
+    private final Future<?>[] pending;
+    private long nextReadPosition;
+    private int current;
+    private boolean currentReady;
+    private boolean endOfFile;
+    private boolean skipLineFeed;
+    private byte[] lineBytes = new byte[256];
+    private int lineLength;
+    private long lineHighBits;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LINE_FEEDS = ONES * '\n';
+    private static final long CARRIAGE_RETURNS = ONES * '\r';
+
+    /**
+     * @param ring reusable buffers, ideally direct and at least a few hundred
+     *             KB each; they are cleared and must not be shared with
+     *             another reader while this one is open
+     */
+    public PrefetchingLineReader(Path path, ByteBuffer[] ring) throws IOException {
+        if (ring.length == 0) {
+            throw new IllegalArgumentException("Read-ahead ring needs at least one buffer");
+        }
+        this.channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+        this.ring = ring;
+        this.ringPositions = new long[ring.length];
+        this.pending = new Future<?>[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i].order(ByteOrder.LITTLE_ENDIAN);
+            issueRead(i);
+        }
+    }
+
+    private void issueRead(int index) {
+        ByteBuffer buffer = ring[index];
+        buffer.clear();
+        ringPositions[index] = nextReadPosition;
+        pending[index] = channel.read(buffer, nextReadPosition);
+        nextReadPosition += buffer.capacity();
+    }
+
+    /**
+     * @return the next line without its terminator, or null at end of file
+     */
+    public String readLine() throws IOException {
+        lineLength = 0;
+        lineHighBits = 0;
+        boolean sawData = false;
+        ByteBuffer buffer;
+        while ((buffer = currentBuffer()) != null) {
+            if (skipLineFeed && buffer.hasRemaining()) {
+                skipLineFeed = false;
+                if (buffer.get(buffer.position()) == '\n') {
+                    buffer.position(buffer.position() + 1);
+                    continue;
+                }
+            }
+            int start = buffer.position();
+            int end = indexOfLineEnd(buffer, start, buffer.limit());
+            append(buffer, start, end - start);
+            sawData |= end > start;
+            if (end < buffer.limit()) {
+                skipLineFeed = buffer.get(end) == '\r';
+                buffer.position(end + 1);
+                return decodeLine();
+            }
+            buffer.position(end);
+            advance();
+        }
+        return sawData ? decodeLine() : null;
+    }
+
+    /**
+     * Position of the first '\n' or '\r' in [from, to), or to if there is
+     * none. Also ORs the high bits of every byte before it into lineHighBits.
+     */
+    private int indexOfLineEnd(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        long highBits = 0;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            long terminators = zeroBytes(word ^ LINE_FEEDS) | zeroBytes(word ^ CARRIAGE_RETURNS);
+            if (terminators != 0) {
+                int offset = Long.numberOfTrailingZeros(terminators) >>> 3;
+                // keep only the bytes before the terminator
+                highBits |= word & HIGH_BITS & ((1L << (offset << 3)) - 1);
+                lineHighBits |= highBits;
+                return i + offset;
+            }
+            highBits |= word & HIGH_BITS;
+        }
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            highBits |= b & 0x80;
+        }
+        lineHighBits |= highBits;
+        return i;
+    }
+
+    /**
+     * High bit set in each byte of the word that is zero. Borrows can mark
+     * bytes above the lowest zero byte too, but the lowest mark is exact.
+     */
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    private void append(ByteBuffer buffer, int from, int length) {
+        if (length == 0) {
+            return;
+        }
+        if (lineLength + length > lineBytes.length) {
+            byte[] grown = new byte[Math.max(lineBytes.length * 2, lineLength + length)];
+            System.arraycopy(lineBytes, 0, grown, 0, lineLength);
+            lineBytes = grown;
+        }
+        buffer.get(from, lineBytes, lineLength, length);
+        lineLength += length;
+    }
+
+    private String decodeLine() {
+        if (lineHighBits == 0) {
+            return new String(lineBytes, 0, lineLength, StandardCharsets.ISO_8859_1);
+        }
+        return new String(lineBytes, 0, lineLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wait for the current buffer's read and flip it for consumption
+     *
+     * @return the buffer, or null once the file is exhausted
+     */
+    private ByteBuffer currentBuffer() throws IOException {
+        if (currentReady) {
+            return ring[current];
+        }
+        if (endOfFile) {
+            return null;
+        }
+        ByteBuffer buffer = ring[current];
+        awaitFull(current);
+        buffer.flip();
+        if (!buffer.hasRemaining()) {
+            endOfFile = true;
+            return null;
+        }
+        currentReady = true;
+        return buffer;
+    }
+
+    /**
+     * Block until the read into a buffer completes, topping it up after a
+     * short read so buffers always cover contiguous ranges of the file
+     */
+    private void awaitFull(int index) throws IOException {
+        ByteBuffer buffer = ring[index];
+        while (true) {
+            int read;
+            try {
+                read = (Integer) pending[index].get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading ahead");
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException
+                    ? (IOException) e.getCause() : new IOException(e.getCause());
+            }
+            if (read < 0 || !buffer.hasRemaining()) {
+                pending[index] = null;
+                return;
+            }
+            pending[index] = channel.read(buffer, ringPositions[index] + buffer.position());
+        }
+    }
+
+    /**
+     * Hand the consumed buffer back to the ring for the next read-ahead
+     */
+    private void advance() {
+        ByteBuffer buffer = ring[current];
+        boolean partial = buffer.limit() < buffer.capacity();
+        currentReady = false;
+        if (partial) {
+            endOfFile = true; // a short final read means the file ended here
+        } else {
+            issueRead(current);
+        }
+        current = (current + 1) % ring.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<?> read : pending) {
+            if (read != null) {
+                try {
+                    read.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    // The file is being closed; a failed read-ahead no longer matters
+                }
+            }
+        }
+        channel.close();
+    }
+}
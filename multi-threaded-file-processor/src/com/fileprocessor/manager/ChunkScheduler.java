@@ -0,0 +1,314 @@
+package com.fileprocessor.manager;
+
+import com.fileprocessor.config.ProcessorConfig;
+import com.fileprocessor.dataprocessor.DataProcessor;
+import com.fileprocessor.dataprocessor.ProcessingContext;
+import com.fileprocessor.filereader.Chunk;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.model.ProcessingStats;
+import com.fileprocessor.model.StageStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Submits chunks to the worker pool and hands back their results in
+ * completion order. Running chunks are watched against the median chunk
+ * latency; a chunk that runs far past it gets a speculative duplicate on
+ * an idle worker and whichever copy finishes first wins. Not thread-safe:
+ * used only by the thread driving the pipeline.
+ */
+public class ChunkScheduler {
+    private static final int MIN_LATENCY_SAMPLES = 3;
+    private static final long STRAGGLER_CHECK_MILLIS = 100;
+
+    private final ThreadPoolManager threadPoolManager;
+    private final CompletionService<List<ProcessedData>> completionService;
+    private final ProcessingContext context;
+    private final ProcessingStats stats;
+    private final StageStats cpuStage;
+    private final boolean speculate;
+    private final double speculationMultiplier;
+    private final long speculationMinMillis;
+    private final long chunkTimeoutMillis;
+
+    private final Map<Future<List<ProcessedData>>, TrackedChunk> attempts = new HashMap<>();
+    private final Map<String, TrackedChunk> running = new LinkedHashMap<>();
+    private final LatencyTracker latencies = new LatencyTracker();
+    private long lastStragglerCheck = System.nanoTime();
+
+    public ChunkScheduler(ThreadPoolManager threadPoolManager, ProcessingContext context,
+                         ProcessorConfig config) {
+        this.threadPoolManager = threadPoolManager;
+        this.completionService = new ExecutorCompletionService<>(threadPoolManager.getExecutorService());
+        this.context = context;
+        this.stats = context.getStats();
+        this.cpuStage = stats.stage("cpu");
+        this.cpuStage.setThreads(threadPoolManager.getCorePoolSize());
+        this.speculate = config.isSpeculativeExecution();
+        this.speculationMultiplier = config.getSpeculationMultiplier();
+        this.speculationMinMillis = config.getSpeculationMinMillis();
+        this.chunkTimeoutMillis = config.getChunkTimeoutMillis();
+    }
+
+    public void submit(Chunk chunk) {
+        TrackedChunk tracked = new TrackedChunk(chunk);
+        running.put(chunk.getChunkId(), tracked);
+        launch(tracked);
+    }
+
+    private void launch(TrackedChunk tracked) {
+        DataProcessor processor = new DataProcessor(tracked.chunk, context, tracked.commitGuard);
+        Future<List<ProcessedData>> future = completionService.submit(() -> {
+            tracked.markStarted();
+            long start = System.nanoTime();
+            try {
+                return processor.call();
+            } catch (Exception e) {
+                if (processor.hasCommitted()) {
+                    tracked.committerFailed = true;
+                }
+                throw e;
+            } finally {
+                cpuStage.recordTask(System.nanoTime() - start);
+            }
+        });
+        if (tracked.original == null) {
+            tracked.original = future;
+        }
+        tracked.futures.add(future);
+        attempts.put(future, tracked);
+    }
+
+    /**
+     * Wait for the next chunk to finish. While waiting, stragglers are
+     * checked for speculation and for the hard chunk timeout.
+     *
+     * @param onResult receives a successful chunk with its winning result,
+     *                 before the chunk is passed to onFinished
+     * @param onFinished receives every chunk that will not be reported again,
+     *                   whether it succeeded, failed or timed out
+     * @return false if no chunk finished within the timeout
+     */
+    public boolean collectNext(long timeout, TimeUnit unit, BiConsumer<Chunk, List<ProcessedData>> onResult,
+                               Consumer<Chunk> onFinished) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long pollMillis = Math.max(1, Math.min(unit.toMillis(timeout), 100));
+        while (true) {
+            Future<List<ProcessedData>> future = completionService.poll(pollMillis, TimeUnit.MILLISECONDS);
+            if (future != null && handleCompletion(future, onResult, onFinished)) {
+                return true;
+            }
+            long now = System.nanoTime();
+            if (now - lastStragglerCheck >= TimeUnit.MILLISECONDS.toNanos(STRAGGLER_CHECK_MILLIS)) {
+                lastStragglerCheck = now;
+                if (expireStragglers(onFinished)) {
+                    return true;
+                }
+                speculateStragglers();
+            }
+            if (now >= deadline) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return true if the completion finished its chunk
+     */
+    private boolean handleCompletion(Future<List<ProcessedData>> future,
+                                     BiConsumer<Chunk, List<ProcessedData>> onResult,
+                                     Consumer<Chunk> onFinished) {
+        TrackedChunk tracked = attempts.remove(future);
+        if (tracked == null || tracked.finished) {
+            return false;
+        }
+        tracked.futures.remove(future);
+
+        List<ProcessedData> result;
+        try {
+            result = future.get();
+        } catch (CancellationException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            if (!tracked.futures.isEmpty() && !tracked.committerFailed) {
+                return false; // another attempt may still succeed
+            }
+            System.err.println("Chunk processing failed: " + e.getCause().getMessage());
+            finish(tracked, onFinished);
+            return true;
+        }
+        if (result == null) {
+            if (!tracked.futures.isEmpty()) {
+                return false; // This attempt lost the commit race; the winner is still on its way
+            }
+            System.err.println("Chunk " + tracked.chunk.getChunkId() + " produced no result");
+            stats.incrementErrorCount();
+            finish(tracked, onFinished);
+            return true;
+        }
+
+        if (future != tracked.original) {
+            stats.incrementSpeculativeWins();
+        }
+        latencies.add(tracked.elapsedMillis());
+        onResult.accept(tracked.chunk, result);
+        finish(tracked, onFinished);
+        return true;
+    }
+
+    private void finish(TrackedChunk tracked, Consumer<Chunk> onFinished) {
+        tracked.finished = true;
+        for (Future<List<ProcessedData>> other : tracked.futures) {
+            other.cancel(true);
+            attempts.remove(other);
+        }
+        tracked.futures.clear();
+        running.remove(tracked.chunk.getChunkId());
+        onFinished.accept(tracked.chunk);
+    }
+
+    /**
+     * Launch a duplicate of each chunk running well past the median latency,
+     * as long as a worker is idle to take it
+     */
+    private void speculateStragglers() {
+        if (!speculate || latencies.size() < MIN_LATENCY_SAMPLES) {
+            return;
+        }
+        long threshold = Math.max(speculationMinMillis,
+                                  (long) (latencies.median() * speculationMultiplier));
+        for (TrackedChunk tracked : running.values()) {
+            if (!hasIdleWorker()) {
+                return;
+            }
+            if (!tracked.speculated && tracked.isStarted() && tracked.elapsedMillis() > threshold) {
+                tracked.speculated = true;
+                stats.incrementSpeculativeLaunches();
+                System.out.println("Speculatively re-executing " + tracked.chunk.getChunkId() +
+                                 " after " + tracked.elapsedMillis() + "ms (median " +
+                                 latencies.median() + "ms)");
+                launch(tracked);
+            }
+        }
+    }
+
+    /**
+     * Give up on chunks that exceeded the hard timeout, reporting them as errors
+     *
+     * @return true if any chunk was finished this way
+     */
+    private boolean expireStragglers(Consumer<Chunk> onFinished) {
+        List<TrackedChunk> expired = new ArrayList<>();
+        for (TrackedChunk tracked : running.values()) {
+            // Claiming the commit stops an attempt that runs on from publishing stats or records;
+            // if an attempt already committed, its result is about to arrive
+            if (tracked.isStarted() && tracked.elapsedMillis() > chunkTimeoutMillis
+                    && tracked.commitGuard.compareAndSet(false, true)) {
+                expired.add(tracked);
+            }
+        }
+        for (TrackedChunk tracked : expired) {
+            System.err.println("Chunk " + tracked.chunk.getChunkId() + " timed out after " +
+                             tracked.elapsedMillis() + "ms; its records are missing from the output");
+            stats.incrementErrorCount();
+            finish(tracked, onFinished);
+        }
+        return !expired.isEmpty();
+    }
+
+    private boolean hasIdleWorker() {
+        return threadPoolManager.hasIdleWorker();
+    }
+
+    public boolean hasPending() {
+        return !running.isEmpty();
+    }
+
+    public int getPendingCount() {
+        return running.size();
+    }
+
+    public long getMedianLatencyMillis() {
+        return latencies.size() == 0 ? 0 : latencies.median();
+    }
+
+    /**
+     * All attempts for one chunk plus its timing
+     */
+    private static class TrackedChunk {
+        private final Chunk chunk;
+        private final AtomicBoolean commitGuard = new AtomicBoolean(false);
+        private final List<Future<List<ProcessedData>>> futures = new ArrayList<>();
+        private volatile long startNanos;
+        private Future<List<ProcessedData>> original;
+        private boolean speculated;
+        private boolean finished;
+        // Set by the attempt that committed if it threw afterwards; no other attempt can commit
+        private volatile boolean committerFailed;
+
+        TrackedChunk(Chunk chunk) {
+            this.chunk = chunk;
+        }
+
+        void markStarted() {
+            if (startNanos == 0) {
+                startNanos = System.nanoTime();
+            }
+        }
+
+        boolean isStarted() {
+            return startNanos != 0;
+        }
+
+        long elapsedMillis() {
+            return isStarted() ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) : 0;
+        }
+    }
+
+    /**
+     * Running median of completed chunk latencies using two heaps
+     */
+    private static class LatencyTracker {
+        private final PriorityQueue<Long> lower = new PriorityQueue<>(Collections.reverseOrder());
+        private final PriorityQueue<Long> upper = new PriorityQueue<>();
+
+        void add(long millis) {
+            if (lower.isEmpty() || millis <= lower.peek()) {
+                lower.add(millis);
+            } else {
+                upper.add(millis);
+            }
+            if (lower.size() > upper.size() + 1) {
+                upper.add(lower.poll());
+            } else if (upper.size() > lower.size()) {
+                lower.add(upper.poll());
+            }
+        }
+
+        long median() {
+            return lower.isEmpty() ? 0 : lower.peek();
+        }
+
+        int size() {
+            return lower.size() + upper.size();
+        }
+    }
+}
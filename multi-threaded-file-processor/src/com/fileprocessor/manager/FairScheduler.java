@@ -0,0 +1,357 @@
+package com.fileprocessor.manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One set of worker threads shared by several jobs with weighted fair
+ * queuing. Every job has its own task queue and a virtual time that
+ * advances by the CPU time its tasks use divided by its weight; an idle
+ * worker always takes the next task of the backlogged job with the lowest
+ * virtual time. Over any busy period each job therefore gets worker time
+ * in proportion to its weight, however many tasks the others have queued,
+ * and a small job arriving next to a huge one starts at once instead of
+ * waiting behind its backlog.
+ *
+ * A job's virtual time is pulled up to the scheduler's current virtual
+ * time whenever it becomes backlogged, so a job cannot bank credit while
+ * idle and then monopolize the workers.
+ */
+public class FairScheduler {
+    private static final long DEFAULT_TASK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition jobsChanged = lock.newCondition();
+    private final List<Job> jobs = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private double virtualTime;
+    private int idleWorkers;
+    private boolean shutdown;
+
+    public FairScheduler(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive: " + workerCount);
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::workLoop, "fair-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Add a job; it competes for the workers until it is shut down and its
+     * last task has finished
+     *
+     * @param weight relative share of worker time while backlogged
+     */
+    public Job register(String name, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Job weight must be positive: " + weight);
+        }
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Scheduler has been shut down");
+            }
+            Job job = new Job(name, weight);
+            job.virtualTime = virtualTime;
+            jobs.add(job);
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void workLoop() {
+        Thread self = Thread.currentThread();
+        while (true) {
+            Job job;
+            Runnable task;
+            long estimate;
+            lock.lock();
+            try {
+                while ((job = nextJob()) == null) {
+                    if (shutdown) {
+                        return;
+                    }
+                    idleWorkers++;
+                    try {
+                        workAvailable.await();
+                    } catch (InterruptedException e) {
+                        // Only cancel() interrupts workers, and it targets running tasks
+                    } finally {
+                        idleWorkers--;
+                    }
+                }
+                QueuedTask queued = job.queue.poll();
+                task = queued.task;
+                job.waitNanos += System.nanoTime() - queued.enqueuedAt;
+                estimate = job.tasksCompleted == 0 ? DEFAULT_TASK_NANOS : job.busyNanos / job.tasksCompleted;
+                virtualTime = Math.max(virtualTime, job.virtualTime);
+                // charge up front so the job's next task is not dispatched as if this one were free
+                job.virtualTime += (double) estimate / job.weight;
+                job.runningThreads.add(self);
+            } finally {
+                lock.unlock();
+            }
+
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                System.err.println("Task of job " + job.name + " failed: " + e);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                lock.lock();
+                try {
+                    job.runningThreads.remove(self);
+                    Thread.interrupted(); // a cancel aimed at this task must not reach the next one
+                    job.tasksCompleted++;
+                    job.busyNanos += elapsed;
+                    job.virtualTime += (double) (elapsed - estimate) / job.weight;
+                    if (job.isTerminatedLocked()) {
+                        jobs.remove(job);
+                    }
+                    jobsChanged.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Backlogged job with the lowest virtual time, ties going to the job
+     * registered first
+     */
+    private Job nextJob() {
+        Job next = null;
+        for (Job job : jobs) {
+            if (!job.queue.isEmpty() && (next == null || job.virtualTime < next.virtualTime)) {
+                next = job;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * True if a worker is waiting for work, so an extra task would start at once
+     */
+    public boolean hasIdleWorker() {
+        lock.lock();
+        try {
+            return idleWorkers > 0 && nextJob() == null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWorkerCount() { return workers.size(); }
+
+    /**
+     * Stop accepting jobs; workers exit once every queued task has run
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public String getStats() {
+        lock.lock();
+        try {
+            return String.format("FairScheduler[Workers: %d, Idle: %d, Jobs: %d]",
+                                 workers.size(), idleWorkers, jobs.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class QueuedTask {
+        final Runnable task;
+        final long enqueuedAt = System.nanoTime();
+
+        QueuedTask(Runnable task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * One job's view of the scheduler. Submitting to it queues the task
+     * behind this job's own tasks only; shutdown() retires the job once its
+     * queue drains and shutdownNow() cancels it.
+     */
+    public class Job extends AbstractExecutorService {
+        private final String name;
+        private final int weight;
+        private final ArrayDeque<QueuedTask> queue = new ArrayDeque<>();
+        private final Set<Thread> runningThreads = new HashSet<>();
+        private double virtualTime;
+        private long tasksCompleted;
+        private long busyNanos;
+        private long waitNanos;
+        private boolean closed;
+        private boolean cancelled;
+
+        private Job(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            lock.lock();
+            try {
+                if (closed || shutdown) {
+                    throw new RejectedExecutionException("Job " + name + " no longer accepts tasks");
+                }
+                if (queue.isEmpty() && runningThreads.isEmpty()) {
+                    virtualTime = Math.max(virtualTime, FairScheduler.this.virtualTime);
+                }
+                queue.add(new QueuedTask(task));
+                workAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Drop every queued task, cancelling those that are futures, and
+         * interrupt the ones running; the job accepts no further tasks
+         */
+        public void cancel() {
+            shutdownNow();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            List<Runnable> dropped = new ArrayList<>();
+            lock.lock();
+            try {
+                closed = true;
+                cancelled = true;
+                for (QueuedTask queued : queue) {
+                    dropped.add(queued.task);
+                }
+                queue.clear();
+                runningThreads.forEach(Thread::interrupt);
+                if (isTerminatedLocked()) {
+                    jobs.remove(this);
+                }
+                jobsChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            for (Runnable task : dropped) {
+                if (task instanceof Future) {
+                    ((Future<?>) task).cancel(false);
+                }
+            }
+            return dropped;
+        }
+
+        @Override
+        public void shutdown() {
+            lock.lock();
+            try {
+                closed = true;
+                if (isTerminatedLocked()) {
+                    jobs.remove(this);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isTerminatedLocked() {
+            return closed && queue.isEmpty() && runningThreads.isEmpty();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            lock.lock();
+            try {
+                return closed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isTerminated() {
+            lock.lock();
+            try {
+                return isTerminatedLocked();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long remaining = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                while (!isTerminatedLocked()) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = jobsChanged.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public FairScheduler getScheduler() { return FairScheduler.this; }
+        public String getName() { return name; }
+        public int getWeight() { return weight; }
+
+        public boolean isCancelled() {
+            lock.lock();
+            try {
+                return cancelled;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            lock.lock();
+            try {
+                return String.format("Job[%s, weight %d, queued %d, running %d, tasks %d, busy %dms, " +
+                                     "queue wait %dms%s]", name, weight, queue.size(), runningThreads.size(),
+                                     tasksCompleted, busyNanos / 1_000_000, waitNanos / 1_000_000,
+                                     cancelled ? ", cancelled" : "");
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
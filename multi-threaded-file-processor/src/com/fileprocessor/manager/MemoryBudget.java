@@ -0,0 +1,86 @@
+package com.fileprocessor.manager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Byte-denominated admission control for data in flight between the
+ * reader and the aggregator. A single request larger than the whole
+ * budget is still admitted when nothing else is in flight, so an
+ * oversized chunk slows the pipeline down instead of deadlocking it.
+ */
+public class MemoryBudget {
+    private final long limitBytes;
+    private long inFlightBytes;
+    private long peakBytes;
+    private long blockedAcquires;
+
+    public MemoryBudget(long limitBytes) {
+        if (limitBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + limitBytes);
+        }
+        this.limitBytes = limitBytes;
+    }
+
+    /**
+     * Reserve bytes, blocking until enough of the budget is released
+     */
+    public synchronized void acquire(long bytes) throws InterruptedException {
+        if (!fits(bytes)) {
+            blockedAcquires++;
+            while (!fits(bytes)) {
+                wait();
+            }
+        }
+        reserve(bytes);
+    }
+
+    /**
+     * Reserve bytes, waiting at most the given time
+     *
+     * @return true if the bytes were reserved
+     */
+    public synchronized boolean tryAcquire(long bytes, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (fits(bytes)) {
+            reserve(bytes);
+            return true;
+        }
+        blockedAcquires++;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long remaining;
+        while (!fits(bytes) && (remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        if (!fits(bytes)) {
+            return false;
+        }
+        reserve(bytes);
+        return true;
+    }
+
+    public synchronized void release(long bytes) {
+        inFlightBytes = Math.max(0, inFlightBytes - bytes);
+        notifyAll();
+    }
+
+    private boolean fits(long bytes) {
+        return inFlightBytes == 0 || inFlightBytes + bytes <= limitBytes;
+    }
+
+    private void reserve(long bytes) {
+        inFlightBytes += bytes;
+        peakBytes = Math.max(peakBytes, inFlightBytes);
+    }
+
+    // Getters
+    public long getLimitBytes() { return limitBytes; }
+    public synchronized long getInFlightBytes() { return inFlightBytes; }
+    public synchronized long getPeakBytes() { return peakBytes; }
+    public synchronized long getBlockedAcquires() { return blockedAcquires; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("MemoryBudget[InFlight: %d, Peak: %d, Limit: %d, Blocked: %d]",
+            inFlightBytes, peakBytes, limitBytes, blockedAcquires);
+    }
+}
@@ -1,42 +1,179 @@
 // manager/ProcessingPipeline.java
 package com.fileprocessor.manager;
 
+import com.fileprocessor.aggregator.DedupIndex;
+import com.fileprocessor.aggregator.FieldExtractor;
+import com.fileprocessor.aggregator.GroupByAggregator;
+import com.fileprocessor.aggregator.GroupResult;
+import com.fileprocessor.aggregator.ReorderBuffer;
 import com.fileprocessor.aggregator.ResultAggregator;
+import com.fileprocessor.aggregator.ValueExtractor;
 import com.fileprocessor.config.ProcessorConfig;
-import com.fileprocessor.config.ThreadConfig;
-import com.fileprocessor.dataprocessor.DataProcessor;
+import com.fileprocessor.dataprocessor.DeadLetterSink;
+import com.fileprocessor.dataprocessor.FilterChain;
+import com.fileprocessor.dataprocessor.LineFilter;
+import com.fileprocessor.dataprocessor.ProcessingContext;
+import com.fileprocessor.dataprocessor.ResultCache;
 import com.fileprocessor.dataprocessor.Transformation;
+import com.fileprocessor.exception.FileProcessingException;
 import com.fileprocessor.filereader.Chunk;
 import com.fileprocessor.filereader.FileReader;
-import com.fileprocessor.model.ProcessedData;
 import com.fileprocessor.model.ProcessingStats;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.writer.ColumnarWriter;
+import com.fileprocessor.writer.OutputFormatter;
+import com.fileprocessor.writer.OutputWriter;
+import com.fileprocessor.writer.PartitionedOutputWriter;
+import com.fileprocessor.writer.SortedTableWriter;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 public class ProcessingPipeline {
+    private static final String RESULTS_FILE = "results.tsv";
+    private static final String SORTED_TABLE_FILE = "results.sst";
+    private static final String COLUMNAR_FILE = "results.col";
+    private static final String GROUPS_FILE = "groups.tsv";
+    private static final String DEFAULT_TRANSFORMATION_IDENTITY = "DEFAULT:1";
+
     private final ProcessorConfig config;
     private final ThreadPoolManager threadPoolManager;
+    private final ThreadPoolManager ioPoolManager;
+    private final boolean ownsPools;
     private final FileReader fileReader;
     private final ProcessingStats stats;
     private final ResultAggregator resultAggregator;
+    private final MemoryBudget memoryBudget;
     private final Transformation transformation;
+    private final String transformationIdentity;
+    private final FilterChain filterChain;
+    private final PartitionedOutputWriter partitionedWriter;
+    private final DedupIndex dedupIndex;
+    private final DeadLetterSink deadLetterSink;
+    private GroupByAggregator groupBy;
+    private List<GroupResult> groupResults = new ArrayList<>();
+    private ReorderBuffer reorderBuffer;
+    private OutputWriter.FileSink orderedSink;
+    private ColumnarWriter columnar;
+    private SortedTableWriter sortedTable;
+    private int completedChunks;
+    private long recordsWritten;
+    private ResultAggregator.AggregationStats aggregationStats;
+    private volatile boolean cancelled;
 
     public ProcessingPipeline(ProcessorConfig config) {
+        this(config, Transformation.createDefaultTransformation(), DEFAULT_TRANSFORMATION_IDENTITY, null, null);
+    }
+
+    /**
+     * Custom transformations can only use the result cache when
+     * config.getTransformationIdentity() names them
+     */
+    public ProcessingPipeline(ProcessorConfig config, Transformation transformation) {
+        this(config, transformation, null, null, null);
+    }
+
+    /**
+     * Run on CPU and I/O pools owned by the caller, such as a daemon that
+     * shares them across jobs; shutdown() leaves them running. The config's
+     * thread settings only decide how many reader loops this job starts.
+     */
+    public ProcessingPipeline(ProcessorConfig config, ThreadPoolManager threadPoolManager,
+                              ThreadPoolManager ioPoolManager) {
+        this(config, Transformation.createDefaultTransformation(), DEFAULT_TRANSFORMATION_IDENTITY,
+             threadPoolManager, ioPoolManager);
+    }
+
+    /**
+     * Shared pools with a custom transformation, which can only use the
+     * result cache when config.getTransformationIdentity() names it
+     */
+    public ProcessingPipeline(ProcessorConfig config, Transformation transformation,
+                              ThreadPoolManager threadPoolManager, ThreadPoolManager ioPoolManager) {
+        this(config, transformation, null, threadPoolManager, ioPoolManager);
+    }
+
+    private ProcessingPipeline(ProcessorConfig config, Transformation transformation, 
+                              String defaultIdentity, ThreadPoolManager sharedCpuPool,
+                              ThreadPoolManager sharedIoPool) {
         this.config = config;
+        this.transformationIdentity = config.getTransformationIdentity() != null 
+            ? config.getTransformationIdentity() : defaultIdentity;
         this.stats = new ProcessingStats();
         this.fileReader = new FileReader(config, stats);
-        this.threadPoolManager = new ThreadPoolManager(
-            new ThreadConfig(config.getThreadPoolSize(), config.getThreadPoolSize() * 2)
-        );
+        this.ownsPools = sharedCpuPool == null;
+        this.threadPoolManager = ownsPools ? new ThreadPoolManager(config.getCpuThreadConfig()) : sharedCpuPool;
+        this.ioPoolManager = ownsPools ? new ThreadPoolManager(config.getIoThreadConfig()) : sharedIoPool;
+        this.memoryBudget = new MemoryBudget(config.getChunkMemoryBudget());
         this.resultAggregator = new ResultAggregator(
-            stats, config.isRemoveDuplicates(), config.isSortOutput()
+            stats, config.isRemoveDuplicates(), config.isSortOutput(),
+            config.getAggregatorMemoryBudget(), new File(config.getOutputDirectory(), ".spill")
         );
-        this.transformation = Transformation.createDefaultTransformation();
+        this.transformation = transformation;
+        this.filterChain = new FilterChain();
+        this.partitionedWriter = config.getOutputPartitions() > 0
+            ? new PartitionedOutputWriter(config.getOutputPartitions(), config.getPartitionBufferSize(),
+                stats, config.isRemoveDuplicates(), config.isSortOutput(),
+                config.getAggregatorMemoryBudget(), new File(config.getOutputDirectory(), ".spill"))
+            : null;
+        this.dedupIndex = config.isDedupIndexEnabled()
+            ? new DedupIndex(new File(config.getOutputDirectory(), ".dedup"), 
+                             config.getDedupIndexShards(), config.getDedupIndexInitialCapacity())
+            : null;
+        this.deadLetterSink = config.isDeadLetterOutput()
+            ? new DeadLetterSink(new File(config.getOutputDirectory()), config.getDeadLetterBatchSize())
+            : null;
+        this.groupBy = createGroupBy(config);
+    }
+
+    /**
+     * Group-by over delimited fields as configured, or null unless
+     * groupByKeyField is set
+     */
+    private static GroupByAggregator createGroupBy(ProcessorConfig config) {
+        if (config.getGroupByKeyField() < 0) {
+            return null;
+        }
+        String delimiter = config.getGroupByDelimiter();
+        if ("\\t".equals(delimiter)) {
+            delimiter = "\t";
+        }
+        if (delimiter == null || delimiter.length() != 1) {
+            throw new IllegalArgumentException("Group-by delimiter must be a single character: " + delimiter);
+        }
+        char separator = delimiter.charAt(0);
+        return new GroupByAggregator(
+            FieldExtractor.delimited(separator, config.getGroupByKeyField()),
+            config.getGroupByValueField() >= 0 
+                ? ValueExtractor.delimited(separator, config.getGroupByValueField()) : ValueExtractor.ONE,
+            config.getGroupByDistinctField() >= 0 
+                ? FieldExtractor.delimited(separator, config.getGroupByDistinctField()) : null);
+    }
+
+    /**
+     * Register a named filter; lines it rejects are dropped before transformation
+     */
+    public ProcessingPipeline addFilter(String name, LineFilter filter) {
+        filterChain.add(name, filter);
+        return this;
+    }
+
+    /**
+     * Switch the pipeline to group-by mode: lines are folded into per-thread
+     * partial aggregates and no ProcessedData records are collected.
+     * Replaces any group-by set up from the config.
+     */
+    public ProcessingPipeline setGroupBy(GroupByAggregator groupBy) {
+        this.groupBy = groupBy;
+        return this;
     }
 
     /**
@@ -46,94 +183,495 @@ public class ProcessingPipeline {
         try {
             System.out.println("Starting file processing pipeline...");
             
-            // Step 1: Read files and split into chunks
+            // Steps 1 and 2: Read files and process chunks as they are produced
             System.out.println("Step 1: Reading files from " + config.getInputDirectory());
-            List<Chunk> chunks = fileReader.readFiles();
-            System.out.println("Created " + chunks.size() + " chunks for processing");
-            
-            // Step 2: Process chunks in parallel
             System.out.println("Step 2: Processing chunks with " + 
-                             config.getThreadPoolSize() + " threads");
-            List<ProcessedData> processedData = processChunks(chunks);
+                             config.getCpuThreadConfig().getCorePoolSize() + " CPU threads, " + 
+                             config.getIoThreadConfig().getCorePoolSize() + " I/O threads, " + 
+                             memoryBudget.getLimitBytes() + " bytes in-flight budget");
+            openOrderedOutput();
+            int totalChunks = processChunks();
+            System.out.println("Created " + totalChunks + " chunks for processing");
+            if (deadLetterSink != null) {
+                deadLetterSink.close();
+            }
             
             // Step 3: Aggregate results
             System.out.println("Step 3: Aggregating results");
-            List<ProcessedData> finalResults = resultAggregator.getFinalResults();
+            if (groupBy != null) {
+                groupResults = groupBy.getResults();
+                System.out.println("Combined " + groupBy.getPartialCount() + 
+                                 " partial aggregates into " + groupResults.size() + " groups");
+            }
             
-            // Step 4: Write output (to be implemented in OutputWriter)
-            System.out.println("Step 4: Writing " + finalResults.size() + " records to output");
+            // Step 4: Write output
+            checkCancelled();
+            recordsWritten = writeOutput();
+            if (dedupIndex != null) {
+                // Only now may later runs treat this run's records as already emitted
+                dedupIndex.commit();
+            }
             
             // Print processing summary
-            printProcessingSummary(chunks.size(), finalResults.size());
+            printProcessingSummary(totalChunks, recordsWritten);
             
         } finally {
-            threadPoolManager.shutdown();
+            shutdown();
         }
     }
 
     /**
-     * Process chunks using thread pool
+     * Stream chunks from the I/O stage into the CPU pool. Each chunk reserves
+     * its estimated size from the memory budget before submission; when the
+     * budget is exhausted the reader stops and merges completed results
+     * (which releases their reservation) until the chunk fits. Results are
+     * merged in completion order, so one slow chunk never holds back others.
      */
-    private List<ProcessedData> processChunks(List<Chunk> chunks) {
-        List<Future<List<ProcessedData>>> futures = new ArrayList<>();
-        
-        // Submit all chunks for processing
-        for (Chunk chunk : chunks) {
-            DataProcessor processor = new DataProcessor(chunk, transformation, stats);
-            Future<List<ProcessedData>> future = threadPoolManager.getExecutorService().submit(processor);
-            futures.add(future);
-        }
+    private int processChunks() {
+        ProcessingContext context = ProcessingContext.builder(transformation, stats)
+            .filterChain(filterChain)
+            .groupBy(groupBy)
+            .resultSink(partitionedWriter)
+            .resultCache(createResultCache())
+            .dedupIndex(dedupIndex)
+            .deadLetterSink(deadLetterSink)
+            .sketchAggregator(reorderBuffer == null ? resultAggregator : null)
+            .build();
+        ChunkScheduler scheduler = new ChunkScheduler(threadPoolManager, context, config);
+        int[] submitted = new int[1];
         
-        // Collect results as they complete
-        List<ProcessedData> allResults = new ArrayList<>();
-        int completed = 0;
+        int totalChunks = fileReader.readFiles(chunk -> {
+            try {
+                while (!memoryBudget.tryAcquire(chunk.getEstimatedBytes(), 0, TimeUnit.MILLISECONDS)) {
+                    checkCancelled();
+                    collectNext(scheduler, submitted[0], 100, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FileProcessingException("Processing interrupted while waiting for memory budget");
+            }
+            checkCancelled();
+            scheduler.submit(chunk);
+            submitted[0]++;
+        }, ioPoolManager.getExecutorService(), config.getIoThreadConfig().getCorePoolSize());
         
-        for (Future<List<ProcessedData>> future : futures) {
+        // Drain the remaining chunks in completion order
+        while (scheduler.hasPending()) {
+            checkCancelled();
             try {
-                List<ProcessedData> chunkResults = future.get(5, TimeUnit.MINUTES);
-                resultAggregator.mergeResults(chunkResults);
-                allResults.addAll(chunkResults);
-                completed++;
-                
-                System.out.printf("Progress: %d/%d chunks completed%n", completed, chunks.size());
-                
+                collectNext(scheduler, totalChunks, 1, TimeUnit.SECONDS);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                System.err.println("Processing interrupted");
+                System.err.println("Processing interrupted with " + 
+                                 scheduler.getPendingCount() + " chunks outstanding");
                 break;
-            } catch (ExecutionException e) {
-                System.err.println("Chunk processing failed: " + e.getCause().getMessage());
-            } catch (TimeoutException e) {
-                System.err.println("Chunk processing timed out");
-                future.cancel(true);
             }
         }
         
-        return allResults;
+        return totalChunks;
+    }
+
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new FileProcessingException("Processing cancelled");
+        }
+    }
+
+    /**
+     * Stop a running execute(): no further chunks are read or submitted,
+     * queued chunks of a FairScheduler job are dropped, and execute() fails
+     * with a FileProcessingException. Nothing is written for a cancelled run.
+     */
+    public void cancel() {
+        cancelled = true;
+        threadPoolManager.cancelPending();
+    }
+
+    public boolean isCancelled() { return cancelled; }
+
+    /**
+     * Open the on-disk result cache if configured. The key covers the
+     * transformation identity and the filter names, so changing either
+     * invalidates earlier entries.
+     */
+    private ResultCache createResultCache() {
+        if (config.getResultCacheDirectory() == null || groupBy != null) {
+            return null;
+        }
+        if (transformationIdentity == null) {
+            System.err.println("Warning: result cache disabled; set a transformation identity " +
+                             "for custom transformations");
+            return null;
+        }
+        String identity = transformationIdentity + "|filters=" + String.join(",", filterChain.getNames());
+        return new ResultCache(new File(config.getResultCacheDirectory()), identity, 
+                               config.getResultCacheMaxBytes());
+    }
+
+    /**
+     * In ordered mode, open the results file now so records can stream
+     * into it in input order while later chunks are still processing.
+     * Unsupported combinations fall back to the usual sorted output.
+     */
+    private void openOrderedOutput() {
+        if (!config.isOrderedOutput()) {
+            return;
+        }
+        if (groupBy != null) {
+            System.err.println("Warning: ordered output is not supported in group-by mode");
+            return;
+        }
+        if (partitionedWriter != null) {
+            System.err.println("Warning: ordered output is not supported with partitioned output");
+            return;
+        }
+        if (config.isSortedTableOutput()) {
+            System.err.println("Warning: sorted table output is not supported with ordered output");
+        }
+        // IDs embed the file and line, so a run cannot contain duplicates to remove
+        File outputDir = new File(config.getOutputDirectory());
+        // Written under a temporary name so a failed or cancelled run leaves no truncated results
+        orderedSink = createOutputWriter(threadPoolManager.getExecutorService())
+            .openFile(partFile(resultsFile(outputDir)));
+        columnar = createColumnarWriter(outputDir);
+        reorderBuffer = new ReorderBuffer(columnar != null ? orderedSink.andThen(columnar) : orderedSink, 
+                                          chunk -> memoryBudget.release(chunk.getEstimatedBytes()));
     }
 
-    private void printProcessingSummary(int totalChunks, int totalRecords) {
+    /**
+     * Wait for the next finished chunk, merge its results and release its
+     * memory reservation. In ordered mode the results go to the reorder
+     * buffer instead, and the reservation is held until they are written,
+     * which bounds how far processing can run ahead of the oldest
+     * unfinished chunk.
+     */
+    private void collectNext(ChunkScheduler scheduler, int totalChunks, long timeout, TimeUnit unit) 
+            throws InterruptedException {
+        scheduler.collectNext(timeout, unit,
+            (chunk, results) -> {
+                if (reorderBuffer != null) {
+                    reorderBuffer.add(chunk, results);
+                } else {
+                    resultAggregator.mergeSketched(results);
+                }
+            },
+            chunk -> {
+                if (reorderBuffer != null) {
+                    reorderBuffer.complete(chunk);
+                } else {
+                    memoryBudget.release(chunk.getEstimatedBytes());
+                }
+                System.out.printf("Progress: %d/%d chunks completed%n", 
+                                ++completedChunks, totalChunks);
+            });
+    }
+
+    /**
+     * Write final records either to a single results file or, in partitioned
+     * mode, to one file per partition written concurrently
+     *
+     * @return number of records written
+     */
+    private long writeOutput() {
+        File outputDir = new File(config.getOutputDirectory());
+        if (groupBy != null) {
+            File groupsFile = new File(outputDir, config.isCompressOutput() ? GROUPS_FILE + ".gz" : GROUPS_FILE);
+            long written = createOutputWriter(threadPoolManager.getExecutorService())
+                .writeGroups(groupResults, groupsFile);
+            System.out.println("Step 4: Wrote " + written + " groups to " + groupsFile + compressedSize(groupsFile));
+            return written;
+        }
+        if (orderedSink != null) {
+            orderedSink.close();
+            if (columnar != null) {
+                columnar.close();
+            }
+            File resultsFile = resultsFile(outputDir);
+            publish(orderedSink.getFile(), resultsFile);
+            publishColumnar(outputDir);
+            System.out.println("Step 4: Streamed " + orderedSink.getWritten() + 
+                             " records in input order to " + resultsFile + compressedSize(resultsFile));
+            printColumnarSummary();
+            return orderedSink.getWritten();
+        }
+        if (partitionedWriter != null) {
+            if (config.isSortedTableOutput()) {
+                System.err.println("Warning: sorted table output is not supported with partitioned output");
+            }
+            if (config.isColumnarOutput()) {
+                System.err.println("Warning: columnar output is not supported with partitioned output");
+            }
+            System.out.println("Step 4: Writing " + partitionedWriter.getPartitionCount() + 
+                             " partitions to " + outputDir);
+            long[] written = partitionedWriter.writePartitions(
+                threadPoolManager.getExecutorService(), outputDir, createOutputWriter(null),
+                config.isCompressOutput() ? ".tsv.gz" : ".tsv");
+            long total = 0;
+            for (int i = 0; i < written.length; i++) {
+                System.out.println("  Partition " + i + ": " + written[i] + " records");
+                total += written[i];
+            }
+            return total;
+        }
+        File resultsFile = resultsFile(outputDir);
+        sortedTable = createSortedTableWriter(outputDir);
+        columnar = createColumnarWriter(outputDir);
+        Consumer<ProcessedData> tee = sortedTable;
+        if (columnar != null) {
+            tee = tee != null ? tee.andThen(columnar) : columnar;
+        }
+        long written;
+        try {
+            written = createOutputWriter(threadPoolManager.getExecutorService())
+                .writeToFile(resultAggregator, resultsFile, tee);
+        } finally {
+            if (sortedTable != null) {
+                sortedTable.close();
+            }
+            if (columnar != null) {
+                columnar.close();
+            }
+        }
+        if (sortedTable != null) {
+            publish(sortedTable.getFile(), new File(outputDir, SORTED_TABLE_FILE));
+        }
+        publishColumnar(outputDir);
+        System.out.println("Step 4: Wrote " + written + " records to " + resultsFile + compressedSize(resultsFile));
+        if (sortedTable != null) {
+            System.out.println("  Sorted table: " + sortedTable.getRecordCount() + " records in " + 
+                             sortedTable.getBlockCount() + " blocks to " + 
+                             new File(outputDir, SORTED_TABLE_FILE));
+        }
+        printColumnarSummary();
+        return written;
+    }
+
+    /**
+     * Column-oriented copy of the results for scans that need only some
+     * fields, built in the same pass as the results file in any order.
+     * It is written under a temporary name until publishColumnar().
+     */
+    private ColumnarWriter createColumnarWriter(File outputDir) {
+        return config.isColumnarOutput()
+            ? new ColumnarWriter(partFile(new File(outputDir, COLUMNAR_FILE)), config.getColumnarRowGroupSize())
+            : null;
+    }
+
+    private void publishColumnar(File outputDir) {
+        if (columnar != null) {
+            publish(columnar.getFile(), new File(outputDir, COLUMNAR_FILE));
+        }
+    }
+
+    private void printColumnarSummary() {
+        if (columnar != null) {
+            File file = new File(config.getOutputDirectory(), COLUMNAR_FILE);
+            System.out.println("  Columnar: " + columnar.getRowCount() + " rows in " + 
+                             columnar.getRowGroupCount() + " row groups to " + file + 
+                             " (" + file.length() + " bytes)");
+        }
+    }
+
+    /**
+     * Name an output file has while it is being written
+     */
+    private static File partFile(File file) {
+        return new File(file.getPath() + ".part");
+    }
+
+    /**
+     * Give a finished output file its final name, replacing the previous run's
+     */
+    private static void publish(File part, File file) {
+        try {
+            try {
+                Files.move(part.toPath(), file.toPath(), 
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(part.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to move " + part + " to " + file, e);
+        }
+    }
+
+    /**
+     * Close and delete output still under its temporary name, i.e. of a run
+     * that failed or was cancelled before writeOutput() published it
+     */
+    private void discardPartialOutput() {
+        File outputDir = new File(config.getOutputDirectory());
+        if (orderedSink != null) {
+            try {
+                orderedSink.close();
+            } catch (FileProcessingException e) {
+                // deleted below either way
+            }
+            partFile(resultsFile(outputDir)).delete();
+        }
+        if (columnar != null) {
+            try {
+                columnar.close();
+            } catch (FileProcessingException e) {
+                // deleted below either way
+            }
+            partFile(new File(outputDir, COLUMNAR_FILE)).delete();
+        }
+        if (sortedTable != null) {
+            try {
+                sortedTable.close();
+            } catch (FileProcessingException e) {
+                // deleted below either way
+            }
+            partFile(new File(outputDir, SORTED_TABLE_FILE)).delete();
+        }
+    }
+
+    /**
+     * TSV writer, gzip-compressing on the executor when configured
+     *
+     * @param compressionExecutor null compresses on the writing thread
+     */
+    private OutputWriter createOutputWriter(ExecutorService compressionExecutor) {
+        return config.isCompressOutput()
+            ? new OutputWriter(OutputFormatter.TSV, compressionExecutor, 
+                               config.getCompressionLevel(), config.getCompressionBlockSize())
+            : new OutputWriter(OutputFormatter.TSV);
+    }
+
+    private File resultsFile(File outputDir) {
+        return new File(outputDir, config.isCompressOutput() ? RESULTS_FILE + ".gz" : RESULTS_FILE);
+    }
+
+    private String compressedSize(File file) {
+        return config.isCompressOutput() ? " (" + file.length() + " bytes compressed)" : "";
+    }
+
+    /**
+     * Indexed copy of the results for lookups by ID, built in the same pass
+     * as the results file. Records must stream out in ID order, so this
+     * needs sorted output. It is written under a temporary name until the
+     * results file is complete.
+     */
+    private SortedTableWriter createSortedTableWriter(File outputDir) {
+        if (!config.isSortedTableOutput()) {
+            return null;
+        }
+        if (!config.isSortOutput()) {
+            System.err.println("Warning: sorted table output disabled; it requires sorted output");
+            return null;
+        }
+        return new SortedTableWriter(partFile(new File(outputDir, SORTED_TABLE_FILE)), config.getSortedTableBlockSize(),
+                                     resultAggregator.getTotalRecords(), config.getBloomBitsPerKey());
+    }
+
+    private void printProcessingSummary(int totalChunks, long totalRecords) {
         System.out.println("\n=== PROCESSING SUMMARY ===");
         System.out.println("Files processed: " + stats.getFilesProcessed());
         System.out.println("Chunks processed: " + stats.getChunksProcessed() + "/" + totalChunks);
         System.out.println("Total records: " + totalRecords);
+        if (groupBy != null) {
+            System.out.println("Aggregated records: " + stats.getTotalRecords() + 
+                             " into " + groupResults.size() + " groups");
+        }
         System.out.println("Errors: " + stats.getErrorCount());
+        if (stats.getFailedLines() > 0) {
+            System.out.println("Failed lines: " + stats.getFailedLines() + (deadLetterSink != null 
+                ? " (written to " + deadLetterSink.getFile() + ")" : ""));
+        }
+        System.out.println("Speculative attempts: " + stats.getSpeculativeLaunches() + 
+                         " (won " + stats.getSpeculativeWins() + ")");
+        System.out.println("Result cache: " + stats.getCacheHits() + " hits, " + 
+                         stats.getCacheMisses() + " misses");
+        if (dedupIndex != null) {
+            System.out.println("Dedup index: " + dedupIndex.getDuplicateCount() + 
+                             " records dropped as already emitted, " + dedupIndex.getSize() + 
+                             " IDs indexed (generation " + dedupIndex.getGeneration() + ")");
+            if (dedupIndex.getPurgedCount() > 0) {
+                System.out.println("Dedup index: purged " + dedupIndex.getPurgedCount() + 
+                                 " IDs left by runs that never committed");
+            }
+        }
         System.out.println("Processing time: " + stats.getProcessingTime() + "ms");
+        stats.getFilterStats().values().forEach(fs -> System.out.println("Filter: " + fs));
         
-        var aggStats = resultAggregator.getAggregationStats();
-        System.out.println("Aggregation: " + aggStats.toString());
+        if (reorderBuffer != null) {
+            System.out.println("Reorder buffer: " + reorderBuffer);
+        } else {
+            System.out.println("Aggregation: " + getAggregationStats());
+        }
         System.out.println("Thread pool stats: " + threadPoolManager.getPoolStats());
+        stats.getStageStats().values().forEach(stage -> System.out.println("Stage: " + stage));
+        System.out.println("Memory budget: " + memoryBudget + 
+                         ", aggregator spills: " + resultAggregator.getSpillCount());
     }
 
     public ProcessingStats getStats() {
         return stats;
     }
 
+    public List<GroupResult> getGroupResults() {
+        return groupResults;
+    }
+
+    public MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public PartitionedOutputWriter getPartitionedWriter() {
+        return partitionedWriter;
+    }
+
     public ResultAggregator getResultAggregator() {
         return resultAggregator;
     }
 
+    /**
+     * Record and unique counts of the last run, across partitions when
+     * partitioned. Unique counts are estimated from ID sketches unless the
+     * config asks for exact statistics. Computed once, by the summary at the
+     * end of execute(), while exact counts can still read the spill files.
+     */
+    public ResultAggregator.AggregationStats getAggregationStats() {
+        if (aggregationStats == null) {
+            aggregationStats = partitionedWriter != null
+                ? partitionedWriter.getAggregationStats(config.isExactAggregationStats())
+                : resultAggregator.getAggregationStats(config.isExactAggregationStats());
+        }
+        return aggregationStats;
+    }
+
+    public DedupIndex getDedupIndex() {
+        return dedupIndex;
+    }
+
+    public ReorderBuffer getReorderBuffer() {
+        return reorderBuffer;
+    }
+
+    /**
+     * Records written by the last execute(), across all output files
+     */
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
     public void shutdown() {
-        threadPoolManager.shutdown();
+        // Before the pools stop: closing a compressed sink may still submit blocks
+        discardPartialOutput();
+        resultAggregator.deleteSpillFiles();
+        if (partitionedWriter != null) {
+            partitionedWriter.deleteSpillFiles();
+        }
+        if (ownsPools) {
+            ioPoolManager.shutdown();
+            threadPoolManager.shutdown();
+        }
+        if (dedupIndex != null) {
+            dedupIndex.close();
+        }
+        if (deadLetterSink != null) {
+            deadLetterSink.close();
+        }
     }
 }
@@ -12,14 +12,26 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ThreadPoolManager {
     private final ThreadConfig config;
+    private final FairScheduler.Job job; // null for a pool of its own
     private ExecutorService executorService;
     private final AtomicBoolean isShutdown = new AtomicBoolean(false);
 
     public ThreadPoolManager(ThreadConfig config) {
         this.config = config;
+        this.job = null;
         initializeThreadPool();
     }
 
+    /**
+     * Run tasks as one job of a FairScheduler shared with other pipelines;
+     * shutdown() retires the job and leaves the scheduler's workers running
+     */
+    public ThreadPoolManager(FairScheduler.Job job) {
+        this.config = null;
+        this.job = job;
+        this.executorService = job;
+    }
+
     private void initializeThreadPool() {
         this.executorService = new ThreadPoolExecutor(
             config.getCorePoolSize(),
@@ -57,14 +69,52 @@ public class ThreadPoolManager {
         return isShutdown.get();
     }
 
+    /**
+     * Only available for a pool of its own, not for a FairScheduler job
+     */
     public ThreadPoolExecutor getThreadPoolExecutor() {
+        if (job != null) {
+            throw new FileProcessingException("Job " + job.getName() + " runs on a shared FairScheduler");
+        }
         return (ThreadPoolExecutor) executorService;
     }
 
+    /**
+     * Threads that can run this manager's tasks at the same time
+     */
+    public int getCorePoolSize() {
+        return job != null ? job.getScheduler().getWorkerCount() : getThreadPoolExecutor().getCorePoolSize();
+    }
+
+    /**
+     * True if a submitted task would start right away rather than queue
+     */
+    public boolean hasIdleWorker() {
+        if (job != null) {
+            return job.getScheduler().hasIdleWorker();
+        }
+        ThreadPoolExecutor executor = getThreadPoolExecutor();
+        return executor.getQueue().isEmpty() && executor.getActiveCount() < executor.getCorePoolSize();
+    }
+
+    /**
+     * Drop queued tasks and interrupt running ones. Only a FairScheduler job
+     * is affected: a plain pool may be shared with other pipelines, so its
+     * tasks are left to finish.
+     */
+    public void cancelPending() {
+        if (job != null) {
+            job.cancel();
+        }
+    }
+
     /**
      * Get current thread pool statistics
      */
     public String getPoolStats() {
+        if (job != null) {
+            return job + " on " + job.getScheduler().getStats();
+        }
         ThreadPoolExecutor executor = getThreadPoolExecutor();
         return String.format(
             "ThreadPool[Active: %d, Pool: %d, Core: %d, Max: %d, Queue: %d/%d]",
@@ -0,0 +1,26 @@
+package com.fileprocessor.model;
+
+/**
+ * 64-bit hash of record IDs shared by the dedup index and the Bloom
+ * filters of sorted tables, which both persist it on disk
+ */
+public final class IdHash {
+    private IdHash() {}
+
+    /**
+     * FNV-1a over the ID's chars followed by the MurmurHash3 finalizer;
+     * never zero, so zero can mark an empty slot
+     */
+    public static long fingerprint(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
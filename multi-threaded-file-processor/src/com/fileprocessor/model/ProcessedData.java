@@ -36,4 +36,11 @@ public class ProcessedData implements Comparable<ProcessedData> {
     public String getId() { return id; }
     public String getContent() { return content; }
     public long getTimestamp() { return timestamp; }
+    
+    /**
+     * Rough heap footprint of this record including its two Strings
+     */
+    public long estimateBytes() {
+        return 136 + 2L * (id.length() + content.length());
+    }
 }
@@ -1,5 +1,8 @@
 package com.fileprocessor.model;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class ProcessingStats {
@@ -7,6 +10,15 @@ public class ProcessingStats {
     private final AtomicLong chunksProcessed = new AtomicLong(0);
     private final AtomicLong totalRecords = new AtomicLong(0);
     private final AtomicLong errorCount = new AtomicLong(0);
+    private final AtomicLong failedLines = new AtomicLong(0);
+    private final AtomicLong speculativeLaunches = new AtomicLong(0);
+    private final AtomicLong speculativeWins = new AtomicLong(0);
+    private final AtomicLong cacheHits = new AtomicLong(0);
+    private final AtomicLong cacheMisses = new AtomicLong(0);
+    private final Map<String, FilterStats> filterStats = 
+        Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, StageStats> stageStats = 
+        Collections.synchronizedMap(new LinkedHashMap<>());
     private final long startTime;
     
     public ProcessingStats() {
@@ -18,13 +30,77 @@ public class ProcessingStats {
     public void incrementChunksProcessed() { chunksProcessed.incrementAndGet(); }
     public void addRecords(long count) { totalRecords.addAndGet(count); }
     public void incrementErrorCount() { errorCount.incrementAndGet(); }
+    public void addFailedLines(long count) { failedLines.addAndGet(count); }
+    public void incrementSpeculativeLaunches() { speculativeLaunches.incrementAndGet(); }
+    public void incrementSpeculativeWins() { speculativeWins.incrementAndGet(); }
+    public void incrementCacheHits() { cacheHits.incrementAndGet(); }
+    public void incrementCacheMisses() { cacheMisses.incrementAndGet(); }
+    
+    public void recordFilterResults(String filterName, long evaluated, long passed) {
+        FilterStats fs = filterStats.computeIfAbsent(filterName, FilterStats::new);
+        fs.evaluated.addAndGet(evaluated);
+        fs.passed.addAndGet(passed);
+    }
+    
+    /**
+     * Utilization counters for a named pipeline stage, created on first use
+     */
+    public StageStats stage(String name) {
+        return stageStats.computeIfAbsent(name, StageStats::new);
+    }
     
     // Getters
     public long getFilesProcessed() { return filesProcessed.get(); }
     public long getChunksProcessed() { return chunksProcessed.get(); }
     public long getTotalRecords() { return totalRecords.get(); }
     public long getErrorCount() { return errorCount.get(); }
+    public long getFailedLines() { return failedLines.get(); }
+    public long getSpeculativeLaunches() { return speculativeLaunches.get(); }
+    public long getSpeculativeWins() { return speculativeWins.get(); }
+    public long getCacheHits() { return cacheHits.get(); }
+    public long getCacheMisses() { return cacheMisses.get(); }
     public long getProcessingTime() { 
         return System.currentTimeMillis() - startTime; 
     }
+    
+    public Map<String, StageStats> getStageStats() {
+        synchronized (stageStats) {
+            return new LinkedHashMap<>(stageStats);
+        }
+    }
+    
+    public Map<String, FilterStats> getFilterStats() {
+        synchronized (filterStats) {
+            return new LinkedHashMap<>(filterStats);
+        }
+    }
+    
+    /**
+     * Selectivity counters for a single named filter
+     */
+    public static class FilterStats {
+        private final String name;
+        private final AtomicLong evaluated = new AtomicLong(0);
+        private final AtomicLong passed = new AtomicLong(0);
+        
+        public FilterStats(String name) {
+            this.name = name;
+        }
+        
+        public String getName() { return name; }
+        public long getEvaluated() { return evaluated.get(); }
+        public long getPassed() { return passed.get(); }
+        public long getRejected() { return evaluated.get() - passed.get(); }
+        
+        public double getSelectivity() {
+            long total = evaluated.get();
+            return total == 0 ? 1.0 : (double) passed.get() / total;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("FilterStats{name=%s, evaluated=%d, passed=%d, selectivity=%.3f}",
+                name, getEvaluated(), getPassed(), getSelectivity());
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package com.fileprocessor.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of ProcessedData shared by spill files, the
+ * result cache and the distributed protocol. Strings are length-prefixed
+ * UTF-8, so values longer than 64 KB are supported.
+ */
+public final class RecordCodec {
+    private RecordCodec() {}
+
+    public static void writeRecord(DataOutputStream out, ProcessedData data) throws IOException {
+        writeString(out, data.getId());
+        writeString(out, data.getContent());
+        out.writeLong(data.getTimestamp());
+    }
+
+    public static ProcessedData readRecord(DataInputStream in) throws IOException {
+        String id = readString(in);
+        String content = readString(in);
+        return new ProcessedData(id, content, in.readLong());
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt record: negative string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
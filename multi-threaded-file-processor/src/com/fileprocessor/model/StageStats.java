@@ -0,0 +1,59 @@
+package com.fileprocessor.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Utilization counters for one pipeline stage. Busy time is time spent
+ * doing the stage's work; blocked time is time spent waiting on the
+ * hand-off to the next stage. Both are summed over the stage's threads.
+ */
+public class StageStats {
+    private final String name;
+    private final AtomicLong busyNanos = new AtomicLong(0);
+    private final AtomicLong blockedNanos = new AtomicLong(0);
+    private final AtomicLong tasks = new AtomicLong(0);
+    private final long startNanos = System.nanoTime();
+    private volatile int threads = 1;
+
+    public StageStats(String name) {
+        this.name = name;
+    }
+
+    public void recordTask(long busy) {
+        tasks.incrementAndGet();
+        busyNanos.addAndGet(busy);
+    }
+
+    public void recordBlocked(long blocked) {
+        blockedNanos.addAndGet(blocked);
+    }
+
+    public String getName() { return name; }
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = threads; }
+    public long getTasks() { return tasks.get(); }
+    public long getBusyMillis() { return busyNanos.get() / 1_000_000; }
+    public long getBlockedMillis() { return blockedNanos.get() / 1_000_000; }
+
+    /**
+     * Fraction of the stage's thread time spent working since it was created
+     */
+    public double getUtilization() {
+        return fractionOfCapacity(busyNanos.get());
+    }
+
+    public double getBlockedFraction() {
+        return fractionOfCapacity(blockedNanos.get());
+    }
+
+    private double fractionOfCapacity(long nanos) {
+        long capacity = (System.nanoTime() - startNanos) * threads;
+        return capacity == 0 ? 0.0 : (double) nanos / capacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[threads=%d, tasks=%d, busy=%.1f%%, blocked=%.1f%%]",
+            name, threads, tasks.get(), getUtilization() * 100, getBlockedFraction() * 100);
+    }
+}
@@ -0,0 +1,294 @@
+package com.fileprocessor.writer;
+
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.model.ProcessedData;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Scans files written by ColumnarWriter. The row group index is loaded on
+ * open and the row groups are read through read-only memory mappings of up
+ * to 1 GB each. A scan decodes only the projected columns of the row
+ * groups its filter accepts, so the pages of other columns and of skipped
+ * groups are never touched. Safe for concurrent use once opened.
+ */
+public class ColumnarReader implements Closeable {
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    /**
+     * Columns a scan can project
+     */
+    public enum Column { ID, TIMESTAMP, CONTENT }
+
+    private final File file;
+    private final FileChannel channel;
+    private final RowGroup[] rowGroups;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final List<Long> segmentStarts = new ArrayList<>();
+    private final long rowCount;
+
+    public ColumnarReader(File file) {
+        this.file = file;
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            long size = channel.size();
+            if (size < ColumnarWriter.FOOTER_BYTES) {
+                throw new FileProcessingException("Not a columnar file: " + file);
+            }
+            MappedByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY,
+                size - ColumnarWriter.FOOTER_BYTES, ColumnarWriter.FOOTER_BYTES);
+            long indexOffset = footer.getLong(0);
+            this.rowCount = footer.getLong(8);
+            if (footer.getLong(16) != ColumnarWriter.MAGIC) {
+                throw new FileProcessingException("Not a columnar file: " + file);
+            }
+
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY,
+                indexOffset, size - ColumnarWriter.FOOTER_BYTES - indexOffset);
+            this.rowGroups = new RowGroup[index.getInt()];
+            for (int g = 0; g < rowGroups.length; g++) {
+                RowGroup group = new RowGroup(g, index.getInt());
+                for (int c = 0; c < 3; c++) {
+                    group.offsets[c] = index.getLong();
+                    group.lengths[c] = index.getInt();
+                    group.encodings[c] = index.get();
+                }
+                group.minId = readString(index);
+                group.maxId = readString(index);
+                group.minTimestamp = index.getLong();
+                group.maxTimestamp = index.getLong();
+                rowGroups[g] = group;
+            }
+            mapSegments();
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to open columnar file: " + file, e);
+        }
+    }
+
+    /**
+     * Map the row groups in segments that each hold whole groups
+     */
+    private void mapSegments() throws IOException {
+        int first = 0;
+        while (first < rowGroups.length) {
+            long start = rowGroups[first].getStart();
+            int last = first;
+            while (last + 1 < rowGroups.length && rowGroups[last + 1].getEnd() - start <= MAX_SEGMENT_BYTES) {
+                last++;
+            }
+            for (int i = first; i <= last; i++) {
+                rowGroups[i].segment = segments.size();
+            }
+            segmentStarts.add(start);
+            segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, rowGroups[last].getEnd() - start));
+            first = last + 1;
+        }
+    }
+
+    /**
+     * Stream the records of every row group the filter accepts. Fields of
+     * columns not projected are null, or 0 for the timestamp.
+     *
+     * @param rowGroupFilter decides from a group's statistics whether to read it
+     */
+    public void scan(Set<Column> columns, Predicate<RowGroup> rowGroupFilter, Consumer<ProcessedData> consumer) {
+        for (RowGroup group : rowGroups) {
+            if (!rowGroupFilter.test(group)) {
+                continue;
+            }
+            String[] ids = columns.contains(Column.ID) ? decodeIds(group) : null;
+            long[] timestamps = columns.contains(Column.TIMESTAMP) ? decodeTimestamps(group) : null;
+            String[] contents = columns.contains(Column.CONTENT) ? decodeContents(group) : null;
+            for (int i = 0; i < group.rowCount; i++) {
+                consumer.accept(new ProcessedData(ids != null ? ids[i] : null,
+                                                  contents != null ? contents[i] : null,
+                                                  timestamps != null ? timestamps[i] : 0));
+            }
+        }
+    }
+
+    /**
+     * Stream the records with fromInclusive <= timestamp < toExclusive,
+     * skipping row groups whose timestamp range cannot overlap
+     */
+    public void scanTimeRange(long fromInclusive, long toExclusive, Set<Column> columns,
+                              Consumer<ProcessedData> consumer) {
+        for (RowGroup group : rowGroups) {
+            if (group.maxTimestamp < fromInclusive || group.minTimestamp >= toExclusive) {
+                continue;
+            }
+            long[] timestamps = decodeTimestamps(group);
+            String[] ids = columns.contains(Column.ID) ? decodeIds(group) : null;
+            String[] contents = columns.contains(Column.CONTENT) ? decodeContents(group) : null;
+            boolean projectTimestamp = columns.contains(Column.TIMESTAMP);
+            for (int i = 0; i < group.rowCount; i++) {
+                if (timestamps[i] >= fromInclusive && timestamps[i] < toExclusive) {
+                    consumer.accept(new ProcessedData(ids != null ? ids[i] : null,
+                                                      contents != null ? contents[i] : null,
+                                                      projectTimestamp ? timestamps[i] : 0));
+                }
+            }
+        }
+    }
+
+    /**
+     * Timestamps of every row group the filter accepts, without creating
+     * a record per row
+     */
+    public void scanTimestamps(Predicate<RowGroup> rowGroupFilter, LongConsumer consumer) {
+        for (RowGroup group : rowGroups) {
+            if (rowGroupFilter.test(group)) {
+                for (long timestamp : decodeTimestamps(group)) {
+                    consumer.accept(timestamp);
+                }
+            }
+        }
+    }
+
+    private ByteBuffer column(RowGroup group, int column) {
+        int position = (int) (group.offsets[column] - segmentStarts.get(group.segment));
+        // a private view, so concurrent scans do not share a position
+        return segments.get(group.segment).duplicate().position(position).limit(position + group.lengths[column]);
+    }
+
+    private String[] decodeIds(RowGroup group) {
+        ByteBuffer in = column(group, 0);
+        String[] ids = new String[group.rowCount];
+        byte[] previous = new byte[64];
+        for (int i = 0; i < ids.length; i++) {
+            int shared = (int) readVarint(in);
+            int suffix = (int) readVarint(in);
+            if (shared + suffix > previous.length) {
+                previous = Arrays.copyOf(previous, Math.max(shared + suffix, previous.length * 2));
+            }
+            in.get(previous, shared, suffix);
+            ids[i] = new String(previous, 0, shared + suffix, StandardCharsets.UTF_8);
+        }
+        return ids;
+    }
+
+    private long[] decodeTimestamps(RowGroup group) {
+        ByteBuffer in = column(group, 1);
+        long[] timestamps = new long[group.rowCount];
+        long last = 0;
+        for (int i = 0; i < timestamps.length; i++) {
+            long zigzag = readVarint(in);
+            last += (zigzag >>> 1) ^ -(zigzag & 1);
+            timestamps[i] = last;
+        }
+        return timestamps;
+    }
+
+    private String[] decodeContents(RowGroup group) {
+        ByteBuffer in = column(group, 2);
+        String[] contents = new String[group.rowCount];
+        if (group.encodings[2] == ColumnarWriter.DICTIONARY) {
+            String[] dictionary = new String[(int) readVarint(in)];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readBytes(in);
+            }
+            for (int i = 0; i < contents.length; i++) {
+                contents[i] = dictionary[(int) readVarint(in)];
+            }
+        } else {
+            for (int i = 0; i < contents.length; i++) {
+                contents[i] = readBytes(in);
+            }
+        }
+        return contents;
+    }
+
+    private static String readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static Set<Column> allColumns() {
+        return EnumSet.allOf(Column.class);
+    }
+
+    public long getRowCount() { return rowCount; }
+    public int getRowGroupCount() { return rowGroups.length; }
+    public RowGroup getRowGroup(int index) { return rowGroups[index]; }
+    public File getFile() { return file; }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Mappings stay valid until collected; nothing else to release
+        }
+    }
+
+    /**
+     * Location, encodings and statistics of one row group
+     */
+    public static class RowGroup {
+        private final int index;
+        private final int rowCount;
+        private final long[] offsets = new long[3];
+        private final int[] lengths = new int[3];
+        private final byte[] encodings = new byte[3];
+        private String minId;
+        private String maxId;
+        private long minTimestamp;
+        private long maxTimestamp;
+        private int segment;
+
+        private RowGroup(int index, int rowCount) {
+            this.index = index;
+            this.rowCount = rowCount;
+        }
+
+        private long getStart() { return offsets[0]; }
+        private long getEnd() { return offsets[2] + lengths[2]; }
+
+        public int getIndex() { return index; }
+        public int getRowCount() { return rowCount; }
+        public String getMinId() { return minId; }
+        public String getMaxId() { return maxId; }
+        public long getMinTimestamp() { return minTimestamp; }
+        public long getMaxTimestamp() { return maxTimestamp; }
+        public boolean isContentDictionaryEncoded() { return encodings[2] == ColumnarWriter.DICTIONARY; }
+
+        /**
+         * Bytes the column takes in this row group
+         */
+        public int getColumnBytes(Column column) { return lengths[column.ordinal()]; }
+    }
+}
@@ -0,0 +1,253 @@
+package com.fileprocessor.writer;
+
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.model.RecordCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Writes records column by column for ColumnarReader, so a downstream scan
+ * of one or two fields reads only their bytes and parses no text. Records
+ * are buffered into row groups of rowGroupSize rows; each row group stores
+ * its ID, timestamp and content columns one after another. Layout:
+ *
+ * <pre>
+ * row groups    per group: ID column, timestamp column, content column
+ * group index   count, then per group: row count, (offset, length,
+ *               encoding) per column, min and max ID, min and max timestamp
+ * footer        index offset, row count, magic
+ * </pre>
+ *
+ * Encodings: IDs are front-coded against the previous ID (shared prefix
+ * length, then the rest), timestamps are zigzag varint deltas, and content
+ * is dictionary-encoded when at most half the group's values are distinct,
+ * plain length-prefixed UTF-8 otherwise.
+ */
+public class ColumnarWriter implements Consumer<ProcessedData>, Closeable {
+    static final long MAGIC = 0x434f4c554d4e5331L;
+    static final int FOOTER_BYTES = 24;
+    static final byte PLAIN = 0;
+    static final byte DICTIONARY = 1;
+    static final byte PREFIX = 2;
+    static final byte DELTA = 3;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final File file;
+    private final int rowGroupSize;
+    private final DataOutputStream out;
+    private final String[] ids;
+    private final long[] timestamps;
+    private final String[] contents;
+    private final ByteArrayOutputStream columnBytes = new ByteArrayOutputStream(BUFFER_SIZE);
+    private final DataOutputStream column = new DataOutputStream(columnBytes);
+    private final List<RowGroupEntry> rowGroups = new ArrayList<>();
+    private Map<String, Integer> dictionary = new HashMap<>();
+    private int rows;
+    private long position;
+    private long rowCount;
+    private boolean closed;
+
+    /**
+     * @param rowGroupSize rows buffered per row group; larger groups
+     *                     compress better, smaller ones skip more finely
+     */
+    public ColumnarWriter(File file, int rowGroupSize) {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("Row group size must be positive: " + rowGroupSize);
+        }
+        this.file = file;
+        this.rowGroupSize = rowGroupSize;
+        this.ids = new String[rowGroupSize];
+        this.timestamps = new long[rowGroupSize];
+        this.contents = new String[rowGroupSize];
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to create columnar file: " + file, e);
+        }
+    }
+
+    /**
+     * Append the next record, in any order
+     */
+    @Override
+    public void accept(ProcessedData data) {
+        ids[rows] = data.getId();
+        timestamps[rows] = data.getTimestamp();
+        contents[rows] = data.getContent();
+        if (dictionary != null) {
+            dictionary.putIfAbsent(data.getContent(), dictionary.size());
+            if (dictionary.size() > rowGroupSize / 2) {
+                dictionary = null; // too many distinct values to pay off in this group
+            }
+        }
+        rows++;
+        rowCount++;
+        if (rows == rowGroupSize) {
+            try {
+                flushRowGroup();
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to write columnar file: " + file, e);
+            }
+        }
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        RowGroupEntry group = new RowGroupEntry(rows);
+        group.minId = ids[0];
+        group.maxId = ids[0];
+        group.minTimestamp = timestamps[0];
+        group.maxTimestamp = timestamps[0];
+        for (int i = 1; i < rows; i++) {
+            if (ids[i].compareTo(group.minId) < 0) group.minId = ids[i];
+            if (ids[i].compareTo(group.maxId) > 0) group.maxId = ids[i];
+            group.minTimestamp = Math.min(group.minTimestamp, timestamps[i]);
+            group.maxTimestamp = Math.max(group.maxTimestamp, timestamps[i]);
+        }
+
+        byte[] previous = new byte[0];
+        for (int i = 0; i < rows; i++) {
+            byte[] id = ids[i].getBytes(StandardCharsets.UTF_8);
+            int shared = 0;
+            int limit = Math.min(previous.length, id.length);
+            while (shared < limit && previous[shared] == id[shared]) {
+                shared++;
+            }
+            writeVarint(column, shared);
+            writeVarint(column, id.length - shared);
+            column.write(id, shared, id.length - shared);
+            previous = id;
+        }
+        writeColumn(group, 0, PREFIX);
+
+        long last = 0;
+        for (int i = 0; i < rows; i++) {
+            long delta = timestamps[i] - last;
+            writeVarint(column, (delta << 1) ^ (delta >> 63));
+            last = timestamps[i];
+        }
+        writeColumn(group, 1, DELTA);
+
+        if (dictionary != null && dictionary.size() <= rows / 2) {
+            String[] entries = new String[dictionary.size()];
+            dictionary.forEach((value, index) -> entries[index] = value);
+            writeVarint(column, entries.length);
+            for (String entry : entries) {
+                writeBytes(column, entry);
+            }
+            for (int i = 0; i < rows; i++) {
+                writeVarint(column, dictionary.get(contents[i]));
+            }
+            writeColumn(group, 2, DICTIONARY);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                writeBytes(column, contents[i]);
+            }
+            writeColumn(group, 2, PLAIN);
+        }
+
+        rowGroups.add(group);
+        rows = 0;
+        dictionary = new HashMap<>();
+    }
+
+    private void writeColumn(RowGroupEntry group, int index, byte encoding) throws IOException {
+        group.offsets[index] = position;
+        group.lengths[index] = columnBytes.size();
+        group.encodings[index] = encoding;
+        columnBytes.writeTo(out);
+        position += columnBytes.size();
+        columnBytes.reset();
+    }
+
+    private static void writeBytes(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Unsigned LEB128: seven bits per byte, high bit set on all but the last
+     */
+    static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Write the last row group, the index and the footer; closing again
+     * does nothing
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushRowGroup();
+            long indexOffset = position;
+            out.writeInt(rowGroups.size());
+            for (RowGroupEntry group : rowGroups) {
+                out.writeInt(group.rowCount);
+                for (int i = 0; i < 3; i++) {
+                    out.writeLong(group.offsets[i]);
+                    out.writeInt(group.lengths[i]);
+                    out.writeByte(group.encodings[i]);
+                }
+                RecordCodec.writeString(out, group.minId);
+                RecordCodec.writeString(out, group.maxId);
+                out.writeLong(group.minTimestamp);
+                out.writeLong(group.maxTimestamp);
+            }
+            out.writeLong(indexOffset);
+            out.writeLong(rowCount);
+            out.writeLong(MAGIC);
+            out.close();
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to finish columnar file: " + file, e);
+        }
+    }
+
+    public long getRowCount() { return rowCount; }
+    public int getRowGroupCount() { return rowGroups.size(); }
+    public File getFile() { return file; }
+
+    private static class RowGroupEntry {
+        final int rowCount;
+        final long[] offsets = new long[3];
+        final int[] lengths = new int[3];
+        final byte[] encodings = new byte[3];
+        String minId;
+        String maxId;
+        long minTimestamp;
+        long maxTimestamp;
+
+        RowGroupEntry(int rowCount) {
+            this.rowCount = rowCount;
+        }
+    }
+}
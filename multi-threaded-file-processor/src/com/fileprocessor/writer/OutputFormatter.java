@@ -0,0 +1,17 @@
+package com.fileprocessor.writer;
+
+import com.fileprocessor.model.ProcessedData;
+
+/**
+ * Formats a record as one line of output
+ */
+@FunctionalInterface
+public interface OutputFormatter {
+    String formatOutput(ProcessedData data);
+    
+    // Tab-separated id, timestamp and content
+    OutputFormatter TSV = data -> 
+        data.getId() + '\t' + data.getTimestamp() + '\t' + data.getContent();
+    
+    OutputFormatter CONTENT_ONLY = ProcessedData::getContent;
+}
@@ -0,0 +1,171 @@
+package com.fileprocessor.writer;
+
+import com.fileprocessor.aggregator.GroupResult;
+import com.fileprocessor.aggregator.ResultAggregator;
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.model.ProcessedData;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Writes the final results of an aggregator to a text file, optionally
+ * gzip-compressed
+ */
+public class OutputWriter {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final OutputFormatter formatter;
+    private final boolean compress;
+    private final ExecutorService compressionExecutor;
+    private final int compressionLevel;
+    private final int compressionBlockSize;
+
+    public OutputWriter(OutputFormatter formatter) {
+        this.formatter = formatter;
+        this.compress = false;
+        this.compressionExecutor = null;
+        this.compressionLevel = 0;
+        this.compressionBlockSize = 0;
+    }
+
+    /**
+     * Write gzip files whose blocks are compressed in parallel
+     *
+     * @param compressionExecutor compresses blocks, or null to compress on
+     *                            the writing thread
+     * @param compressionBlockSize uncompressed bytes per gzip member
+     */
+    public OutputWriter(OutputFormatter formatter, ExecutorService compressionExecutor,
+                        int compressionLevel, int compressionBlockSize) {
+        this.formatter = formatter;
+        this.compress = true;
+        this.compressionExecutor = compressionExecutor;
+        this.compressionLevel = compressionLevel;
+        this.compressionBlockSize = compressionBlockSize;
+    }
+
+    /**
+     * Stream the aggregator's final results into the file
+     *
+     * @return number of records written
+     */
+    public long writeToFile(ResultAggregator aggregator, File file) {
+        return writeToFile(aggregator, file, null);
+    }
+
+    /**
+     * Stream the aggregator's final results into the file, handing each
+     * record to the tee as well so another output can be built in the
+     * same pass
+     *
+     * @param tee receives every record written, or null
+     * @return number of records written
+     */
+    public long writeToFile(ResultAggregator aggregator, File file, Consumer<ProcessedData> tee) {
+        try (FileSink sink = openFile(file)) {
+            aggregator.forEachFinalResult(tee == null ? sink : sink.andThen(tee));
+            return sink.getWritten();
+        }
+    }
+
+    /**
+     * Write group-by results, one tab-separated line per group: key,
+     * count, sum, min, max and distinct count
+     *
+     * @return number of groups written
+     */
+    public long writeGroups(List<GroupResult> groups, File file) {
+        try (BufferedWriter writer = openWriter(file)) {
+            for (GroupResult group : groups) {
+                writer.write(group.getKey());
+                writer.write('\t');
+                writer.write(Long.toString(group.getCount()));
+                writer.write('\t');
+                writer.write(Long.toString(group.getSum()));
+                writer.write('\t');
+                writer.write(Long.toString(group.getMin()));
+                writer.write('\t');
+                writer.write(Long.toString(group.getMax()));
+                writer.write('\t');
+                writer.write(Long.toString(group.getDistinctCount()));
+                writer.newLine();
+            }
+            return groups.size();
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write output file: " + file, e);
+        }
+    }
+
+    /**
+     * Open the file for records pushed one at a time, e.g. as they are
+     * released in input order; close() flushes it
+     */
+    public FileSink openFile(File file) {
+        try {
+            return new FileSink(file, openWriter(file));
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write output file: " + file, e);
+        }
+    }
+
+    private BufferedWriter openWriter(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        OutputStream out = new FileOutputStream(file);
+        if (compress) {
+            // enough blocks in flight to keep every core busy while the oldest is written
+            out = new ParallelGzipOutputStream(out, compressionExecutor, compressionLevel, 
+                compressionBlockSize, 2 * Runtime.getRuntime().availableProcessors());
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Formatted records written to one open file
+     */
+    public class FileSink implements Consumer<ProcessedData>, Closeable {
+        private final File file;
+        private final BufferedWriter writer;
+        private long written;
+
+        private FileSink(File file, BufferedWriter writer) {
+            this.file = file;
+            this.writer = writer;
+        }
+
+        @Override
+        public void accept(ProcessedData data) {
+            try {
+                writer.write(formatter.formatOutput(data));
+                writer.newLine();
+                written++;
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to write output file: " + file, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to write output file: " + file, e);
+            }
+        }
+
+        public File getFile() { return file; }
+        public long getWritten() { return written; }
+    }
+}
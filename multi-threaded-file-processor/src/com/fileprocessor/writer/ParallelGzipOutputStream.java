@@ -0,0 +1,209 @@
+package com.fileprocessor.writer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip output compressed in parallel. Input is cut into fixed-size blocks
+ * and each block becomes a complete gzip member, compressed by a task on
+ * the executor. The thread writing to the stream appends finished members
+ * to the underlying stream in block order, so the result is a multi-member
+ * gzip file that gzip, zcat and GZIPInputStream read as one stream. Each
+ * member starts with an empty dictionary, which costs a little ratio for
+ * blocks of a few hundred KB or more.
+ *
+ * At most maxPendingBlocks blocks are compressing at once; writing beyond
+ * that waits for the oldest one. Without an executor blocks are compressed
+ * on the writing thread, e.g. when files are already written concurrently.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final byte[] HEADER = {
+        0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff // no flags or mtime, unknown OS
+    };
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int level;
+    private final int maxPendingBlocks;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block;
+    private int blockLength;
+    private long bytesIn;
+    private long bytesOut;
+    private boolean closed;
+
+    /**
+     * @param executor compresses blocks, or null to compress on the writing thread
+     * @param level Deflater compression level, 0 to 9
+     * @param blockSize uncompressed bytes per gzip member
+     * @param maxPendingBlocks blocks in flight before writes wait
+     */
+    public ParallelGzipOutputStream(OutputStream out, ExecutorService executor, int level,
+                                    int blockSize, int maxPendingBlocks) {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9: " + level);
+        }
+        if (blockSize <= 0 || maxPendingBlocks <= 0) {
+            throw new IllegalArgumentException("Block size and pending blocks must be positive");
+        }
+        this.out = out;
+        this.executor = executor;
+        this.level = level;
+        this.maxPendingBlocks = maxPendingBlocks;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == block.length) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            int n = Math.min(length, block.length - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, n);
+            blockLength += n;
+            offset += n;
+            length -= n;
+            if (blockLength == block.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+        byte[] data = block;
+        int length = blockLength;
+        bytesIn += length;
+        block = new byte[data.length];
+        blockLength = 0;
+        if (executor == null) {
+            writeMember(compress(data, length, level));
+            return;
+        }
+        while (pending.size() >= maxPendingBlocks) {
+            writeMember(await(pending.poll()));
+        }
+        pending.add(executor.submit(() -> compress(data, length, level)));
+        // append whatever has already finished, in order, without waiting
+        while (!pending.isEmpty() && pending.peek().isDone()) {
+            writeMember(await(pending.poll()));
+        }
+    }
+
+    private void writeMember(byte[] member) throws IOException {
+        out.write(member);
+        bytesOut += member.length;
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing output");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress output block", e.getCause());
+        }
+    }
+
+    /**
+     * One complete gzip member: header, raw deflate data, CRC32 and length
+     */
+    static byte[] compress(byte[] data, int length, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            // incompressible input grows by a few bytes per 16KB stored block
+            byte[] member = new byte[HEADER.length + length + length / 1000 + 64 + 8];
+            System.arraycopy(HEADER, 0, member, 0, HEADER.length);
+            int position = HEADER.length;
+            while (!deflater.finished()) {
+                if (position == member.length - 8) {
+                    member = Arrays.copyOf(member, member.length * 2);
+                }
+                position += deflater.deflate(member, position, member.length - 8 - position);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, length);
+            position = writeIntLE(member, position, (int) crc.getValue());
+            position = writeIntLE(member, position, length);
+            return position == member.length ? member : Arrays.copyOf(member, position);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int writeIntLE(byte[] buffer, int position, int value) {
+        buffer[position] = (byte) value;
+        buffer[position + 1] = (byte) (value >>> 8);
+        buffer[position + 2] = (byte) (value >>> 16);
+        buffer[position + 3] = (byte) (value >>> 24);
+        return position + 4;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Flushing only passes on members already compressed; a partial block
+     * stays buffered so members keep their full size
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        out.flush();
+    }
+
+    /**
+     * Compress the last partial block, write every member in order and
+     * close the underlying stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            submitBlock();
+            while (!pending.isEmpty()) {
+                writeMember(await(pending.poll()));
+            }
+            if (bytesOut == 0) {
+                // an empty file is still a valid gzip stream
+                writeMember(compress(block, 0, level));
+            }
+        } finally {
+            closed = true;
+            pending.forEach(future -> future.cancel(false));
+            pending.clear();
+            out.close();
+        }
+    }
+
+    public long getBytesIn() { return bytesIn; }
+    public long getBytesOut() { return bytesOut; }
+}
@@ -0,0 +1,203 @@
+package com.fileprocessor.writer;
+
+import com.fileprocessor.aggregator.HyperLogLog;
+import com.fileprocessor.aggregator.ResultAggregator;
+import com.fileprocessor.dataprocessor.ResultSink;
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.model.ProcessingStats;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Routes records by hash of their ID into N independent partitions. Each
+ * worker thread buffers records per partition and hands full buffers to
+ * that partition's aggregator, so there is no global merge: dedup and sort
+ * happen per partition, and partitions are written concurrently to
+ * part-NNNNN files. Because routing uses the ID, ID-based dedup within a
+ * partition is equivalent to a global dedup.
+ */
+public class PartitionedOutputWriter implements ResultSink {
+    private final ResultAggregator[] partitions;
+    private final File spillDirectory;
+    private final int bufferSize;
+    private final Queue<PartitionBuffers> allBuffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<PartitionBuffers> localBuffers;
+
+    /**
+     * @param memoryLimitBytes total aggregator memory, split evenly across partitions
+     */
+    public PartitionedOutputWriter(int partitionCount, int bufferSize, ProcessingStats stats,
+                                  boolean removeDuplicates, boolean sortData,
+                                  long memoryLimitBytes, File spillDirectory) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("Partition count must be positive: " + partitionCount);
+        }
+        this.partitions = new ResultAggregator[partitionCount];
+        this.spillDirectory = spillDirectory;
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new ResultAggregator(stats, removeDuplicates, sortData,
+                memoryLimitBytes / partitionCount, new File(spillDirectory, partitionName(i)));
+        }
+        this.bufferSize = bufferSize;
+        this.localBuffers = ThreadLocal.withInitial(() -> {
+            PartitionBuffers buffers = new PartitionBuffers(partitionCount, bufferSize);
+            allBuffers.add(buffers);
+            return buffers;
+        });
+    }
+
+    /**
+     * Route committed chunk results into the calling thread's buffers
+     */
+    @Override
+    public void accept(List<ProcessedData> results) {
+        PartitionBuffers buffers = localBuffers.get();
+        for (ProcessedData data : results) {
+            int partition = partitionOf(data.getId());
+            List<ProcessedData> buffer = buffers.lists[partition];
+            buffer.add(data);
+            if (buffer.size() >= bufferSize) {
+                flushBuffer(partition, buffer);
+            }
+        }
+    }
+
+    public int partitionOf(String id) {
+        int h = id.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), partitions.length);
+    }
+
+    private void flushBuffer(int partition, List<ProcessedData> buffer) {
+        partitions[partition].mergeResults(new ArrayList<>(buffer));
+        buffer.clear();
+    }
+
+    /**
+     * Flush every thread's partial buffers. Only call once all tasks have completed.
+     */
+    public void flush() {
+        for (PartitionBuffers buffers : allBuffers) {
+            for (int p = 0; p < partitions.length; p++) {
+                if (!buffers.lists[p].isEmpty()) {
+                    flushBuffer(p, buffers.lists[p]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Dedup, sort and write every partition concurrently
+     *
+     * @return records written per partition
+     */
+    public long[] writePartitions(ExecutorService executor, File outputDirectory,
+                                  OutputFormatter formatter) {
+        return writePartitions(executor, outputDirectory, new OutputWriter(formatter), ".tsv");
+    }
+
+    /**
+     * Write every partition concurrently through the writer, e.g. one that
+     * compresses, naming the files part-NNNNN plus the suffix. A compressing
+     * writer should compress on the writing thread: partitions already keep
+     * the executor busy, and compression tasks queued behind them could
+     * never run.
+     *
+     * @return records written per partition
+     */
+    public long[] writePartitions(ExecutorService executor, File outputDirectory,
+                                  OutputWriter writer, String suffix) {
+        flush();
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < partitions.length; i++) {
+            ResultAggregator partition = partitions[i];
+            File file = new File(outputDirectory, partitionName(i) + suffix);
+            futures.add(executor.submit(() -> writer.writeToFile(partition, file)));
+        }
+
+        long[] written = new long[partitions.length];
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                written[i] = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FileProcessingException("Interrupted while writing partitions");
+            } catch (ExecutionException e) {
+                throw new FileProcessingException("Failed to write " + partitionName(i), e.getCause());
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Delete every partition's sorted runs, and the spill directory if it
+     * is left empty
+     */
+    public void deleteSpillFiles() {
+        for (ResultAggregator partition : partitions) {
+            partition.deleteSpillFiles();
+        }
+        spillDirectory.delete();
+    }
+
+    private static String partitionName(int index) {
+        return String.format("part-%05d", index);
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    public ResultAggregator getPartition(int index) {
+        return partitions[index];
+    }
+
+    /**
+     * Statistics over all partitions. Estimated unique counts come from
+     * the union of the partitions' ID sketches; exact ones add up the
+     * partitions' exact counts, which is correct because every ID lives in
+     * exactly one partition. Only call once all tasks have completed.
+     */
+    public ResultAggregator.AggregationStats getAggregationStats(boolean exact) {
+        flush();
+        int total = 0;
+        int tasks = 0;
+        int unique = 0;
+        boolean estimated = false;
+        HyperLogLog union = new HyperLogLog();
+        for (ResultAggregator partition : partitions) {
+            ResultAggregator.AggregationStats stats = partition.getAggregationStats(exact);
+            total += stats.getTotalRecords();
+            tasks += stats.getProcessedTasks();
+            unique += stats.getUniqueRecords();
+            estimated |= stats.isEstimated();
+            union.merge(partition.getIdSketch());
+        }
+        if (estimated) {
+            unique = (int) Math.min(total, union.estimate());
+        }
+        return new ResultAggregator.AggregationStats(total, tasks, unique, estimated);
+    }
+
+    /**
+     * Per-thread buffers, one per partition
+     */
+    private static class PartitionBuffers {
+        private final List<ProcessedData>[] lists;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PartitionBuffers(int partitionCount, int bufferSize) {
+            lists = new List[partitionCount];
+            for (int i = 0; i < partitionCount; i++) {
+                lists[i] = new ArrayList<>(Math.min(bufferSize, 64));
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.fileprocessor.writer;
+
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.model.IdHash;
+import com.fileprocessor.model.ProcessedData;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Point lookups and range scans over a file written by SortedTableWriter.
+ * The block index and Bloom filter are loaded on open; data blocks are
+ * read through read-only memory mappings of up to 1 GB each, so a lookup
+ * is a Bloom probe, a binary search of the index and a scan of one block.
+ * Safe for concurrent use once opened.
+ */
+public class SortedTableReader implements Closeable {
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final File file;
+    private final FileChannel channel;
+    private final String[] blockKeys;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final int[] blockSegments;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final List<Long> segmentStarts = new ArrayList<>();
+    private final long[] bloomWords;
+    private final int bloomHashes;
+    private final long recordCount;
+
+    public SortedTableReader(File file) {
+        this.file = file;
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            long size = channel.size();
+            if (size < SortedTableWriter.FOOTER_BYTES) {
+                throw new FileProcessingException("Not a sorted table: " + file);
+            }
+            MappedByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY,
+                size - SortedTableWriter.FOOTER_BYTES, SortedTableWriter.FOOTER_BYTES);
+            long indexOffset = footer.getLong(0);
+            long bloomOffset = footer.getLong(8);
+            this.recordCount = footer.getLong(16);
+            if (footer.getLong(24) != SortedTableWriter.MAGIC) {
+                throw new FileProcessingException("Not a sorted table: " + file);
+            }
+
+            long tailEnd = size - SortedTableWriter.FOOTER_BYTES;
+            MappedByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY,
+                indexOffset, tailEnd - indexOffset);
+            int blockCount = tail.getInt();
+            this.blockKeys = new String[blockCount];
+            this.blockOffsets = new long[blockCount];
+            this.blockLengths = new int[blockCount];
+            this.blockSegments = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                byte[] key = new byte[tail.getInt()];
+                tail.get(key);
+                blockKeys[i] = new String(key, StandardCharsets.UTF_8);
+                blockOffsets[i] = tail.getLong();
+                blockLengths[i] = tail.getInt();
+            }
+            if (bloomOffset >= 0) {
+                this.bloomHashes = tail.getInt();
+                this.bloomWords = new long[tail.getInt()];
+                tail.asLongBuffer().get(bloomWords);
+            } else {
+                this.bloomHashes = 0;
+                this.bloomWords = null;
+            }
+            mapSegments(indexOffset);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to open sorted table: " + file, e);
+        }
+    }
+
+    /**
+     * Map the data region in segments that each hold whole blocks
+     */
+    private void mapSegments(long dataEnd) throws IOException {
+        int first = 0;
+        while (first < blockKeys.length) {
+            long start = blockOffsets[first];
+            int last = first;
+            while (last + 1 < blockKeys.length
+                    && blockOffsets[last + 1] + blockLengths[last + 1] - start <= MAX_SEGMENT_BYTES) {
+                last++;
+            }
+            long end = Math.min(dataEnd, blockOffsets[last] + blockLengths[last]);
+            for (int i = first; i <= last; i++) {
+                blockSegments[i] = segments.size();
+            }
+            segmentStarts.add(start);
+            segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            first = last + 1;
+        }
+    }
+
+    /**
+     * @return the first record with the ID, or null if there is none
+     */
+    public ProcessedData get(String id) {
+        if (!mightContain(id)) {
+            return null;
+        }
+        ProcessedData[] found = new ProcessedData[1];
+        scanFrom(findBlock(id), id, null, data -> {
+            if (found[0] == null && data.getId().equals(id)) {
+                found[0] = data;
+            }
+        }, true);
+        return found[0];
+    }
+
+    /**
+     * Stream records with fromInclusive <= ID < toExclusive in ID order;
+     * a null bound is open
+     */
+    public void scan(String fromInclusive, String toExclusive, Consumer<ProcessedData> consumer) {
+        int block = fromInclusive == null ? 0 : findBlock(fromInclusive);
+        scanFrom(block, fromInclusive, toExclusive, consumer, false);
+    }
+
+    private void scanFrom(int block, String from, String to, Consumer<ProcessedData> consumer,
+                          boolean exactMatchOnly) {
+        for (int b = Math.max(0, block); b < blockKeys.length; b++) {
+            if (to != null && blockKeys[b].compareTo(to) >= 0) {
+                return;
+            }
+            MappedByteBuffer segment = segments.get(blockSegments[b]);
+            int position = (int) (blockOffsets[b] - segmentStarts.get(blockSegments[b]));
+            int end = position + blockLengths[b];
+            while (position < end) {
+                int idLength = segment.getInt(position);
+                String id = decode(segment, position + 4, idLength);
+                position += 4 + idLength;
+                int contentLength = segment.getInt(position);
+                int contentStart = position + 4;
+                position = contentStart + contentLength;
+                long timestamp = segment.getLong(position);
+                position += 8;
+
+                int fromOrder = from == null ? 1 : id.compareTo(from);
+                if (fromOrder < 0) {
+                    continue;
+                }
+                if ((exactMatchOnly && fromOrder > 0) || (to != null && id.compareTo(to) >= 0)) {
+                    return;
+                }
+                consumer.accept(new ProcessedData(id, decode(segment, contentStart, contentLength), timestamp));
+            }
+        }
+    }
+
+    /**
+     * Last block whose first ID is strictly before the key, or block 0.
+     * Duplicates of a key can spill across blocks, so a block that starts
+     * with the key itself may not be the first one holding it.
+     */
+    private int findBlock(String id) {
+        int low = 0;
+        int high = blockKeys.length - 1;
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (blockKeys[mid].compareTo(id) < 0) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    private static String decode(MappedByteBuffer segment, int position, int length) {
+        byte[] bytes = new byte[length];
+        segment.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * False only if the table certainly has no record with the ID
+     */
+    public boolean mightContain(String id) {
+        if (bloomWords == null) {
+            return true;
+        }
+        long hash = IdHash.fingerprint(id);
+        long bits = (long) bloomWords.length * 64;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            if ((bloomWords[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getRecordCount() { return recordCount; }
+    public int getBlockCount() { return blockKeys.length; }
+    public File getFile() { return file; }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Mappings stay valid until collected; nothing else to release
+        }
+    }
+}
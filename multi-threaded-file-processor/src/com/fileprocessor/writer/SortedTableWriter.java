@@ -0,0 +1,171 @@
+package com.fileprocessor.writer;
+
+import com.fileprocessor.exception.FileProcessingException;
+import com.fileprocessor.model.IdHash;
+import com.fileprocessor.model.ProcessedData;
+import com.fileprocessor.model.RecordCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Writes records sorted by ID into an immutable block-structured file for
+ * lookups by SortedTableReader. Layout:
+ *
+ * <pre>
+ * data blocks   records in RecordCodec format, about blockSize bytes each
+ * block index   count, then (first ID, offset, length) per block
+ * bloom filter  hash count, word count, words (absent if disabled)
+ * footer        index offset, bloom offset or -1, record count, magic
+ * </pre>
+ */
+public class SortedTableWriter implements Consumer<ProcessedData>, Closeable {
+    static final long MAGIC = 0x53535441424c4531L;
+    static final int FOOTER_BYTES = 32;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final File file;
+    private final int blockSize;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream blockBytes;
+    private final DataOutputStream block;
+    private final List<String> blockKeys = new ArrayList<>();
+    private final List<long[]> blockRanges = new ArrayList<>();
+    private final long[] bloomWords;
+    private final int bloomHashes;
+    private String blockFirstKey;
+    private String lastKey;
+    private long position;
+    private long recordCount;
+    private boolean closed;
+
+    /**
+     * @param expectedRecords upper bound used to size the Bloom filter
+     * @param bloomBitsPerKey 0 disables the Bloom filter; 10 gives about 1% false positives
+     */
+    public SortedTableWriter(File file, int blockSize, long expectedRecords, int bloomBitsPerKey) {
+        this.file = file;
+        this.blockSize = blockSize;
+        this.blockBytes = new ByteArrayOutputStream(blockSize + 1024);
+        this.block = new DataOutputStream(blockBytes);
+        if (bloomBitsPerKey > 0) {
+            long bits = Math.max(64, expectedRecords * bloomBitsPerKey);
+            this.bloomWords = new long[(int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64)];
+            this.bloomHashes = Math.max(1, (int) Math.round(bloomBitsPerKey * Math.log(2)));
+        } else {
+            this.bloomWords = null;
+            this.bloomHashes = 0;
+        }
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to create sorted table: " + file, e);
+        }
+    }
+
+    /**
+     * Append the next record; IDs must arrive in non-decreasing order
+     */
+    @Override
+    public void accept(ProcessedData data) {
+        String id = data.getId();
+        if (lastKey != null && id.compareTo(lastKey) < 0) {
+            throw new FileProcessingException("Sorted table records out of order: " + id +
+                                              " after " + lastKey);
+        }
+        try {
+            if (blockFirstKey == null) {
+                blockFirstKey = id;
+            }
+            RecordCodec.writeRecord(block, data);
+            if (blockBytes.size() >= blockSize) {
+                flushBlock();
+            }
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write sorted table: " + file, e);
+        }
+        if (bloomWords != null) {
+            addToBloom(IdHash.fingerprint(id));
+        }
+        lastKey = id;
+        recordCount++;
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockBytes.size() == 0) {
+            return;
+        }
+        blockKeys.add(blockFirstKey);
+        blockRanges.add(new long[] {position, blockBytes.size()});
+        blockBytes.writeTo(out);
+        position += blockBytes.size();
+        blockBytes.reset();
+        blockFirstKey = null;
+    }
+
+    /**
+     * Double hashing over the two halves of the 64-bit ID hash
+     */
+    private void addToBloom(long hash) {
+        long bits = (long) bloomWords.length * 64;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            bloomWords[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Write the index, Bloom filter and footer; closing again does nothing
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+            long indexOffset = position;
+            out.writeInt(blockKeys.size());
+            for (int i = 0; i < blockKeys.size(); i++) {
+                RecordCodec.writeString(out, blockKeys.get(i));
+                out.writeLong(blockRanges.get(i)[0]);
+                out.writeInt((int) blockRanges.get(i)[1]);
+            }
+            out.flush(); // so the file length is the Bloom filter's offset
+            long bloomOffset = bloomWords != null ? file.length() : -1;
+            if (bloomWords != null) {
+                out.writeInt(bloomHashes);
+                out.writeInt(bloomWords.length);
+                for (long word : bloomWords) {
+                    out.writeLong(word);
+                }
+            }
+            out.writeLong(indexOffset);
+            out.writeLong(bloomOffset);
+            out.writeLong(recordCount);
+            out.writeLong(MAGIC);
+            out.close();
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to finish sorted table: " + file, e);
+        }
+    }
+
+    public long getRecordCount() { return recordCount; }
+    public int getBlockCount() { return blockKeys.size(); }
+    public File getFile() { return file; }
+}
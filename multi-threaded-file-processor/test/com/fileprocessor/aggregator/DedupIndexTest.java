@@ -0,0 +1,173 @@
+package com.fileprocessor.aggregator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks DedupIndex across reopen, crashed and cancelled runs, concurrent
+ * growth and the purge of uncommitted generations. Run with
+ * java -cp bin:test-bin com.fileprocessor.aggregator.DedupIndexTest;
+ * exits non-zero on the first failure.
+ */
+public class DedupIndexTest {
+    private static int checks;
+
+    public static void main(String[] args) throws Exception {
+        reopenKeepsCommittedIds();
+        crashedRunIsPurgedAfterLaterCommit();
+        cancelledRunIsPurged();
+        concurrentInsertsAcrossGrowth();
+        uncommittedGrowthIsPurged();
+        System.out.println("DedupIndexTest: " + checks + " checks passed");
+    }
+
+    private static void reopenKeepsCommittedIds() throws IOException {
+        File dir = tempDirectory();
+        DedupIndex first = new DedupIndex(dir, 2, 16);
+        check(addAll(first, "a", 1000) == 1000, "first run sees every ID as new");
+        check(addAll(first, "a", 1000) == 0, "first run sees its own IDs again as duplicates");
+        first.commit();
+        first.close();
+
+        DedupIndex second = new DedupIndex(dir, 2, 16);
+        check(second.getGeneration() == 2, "second run gets generation 2");
+        check(second.getSize() == 1000, "committed IDs survive reopen");
+        check(addAll(second, "a", 1000) == 0, "committed IDs stay duplicates after reopen");
+        check(addAll(second, "b", 1000) == 1000, "unseen IDs are new after reopen");
+        check(second.getPurgedCount() == 0, "nothing purged after a clean run");
+        second.close();
+        delete(dir);
+    }
+
+    private static void crashedRunIsPurgedAfterLaterCommit() throws IOException {
+        File dir = tempDirectory();
+        DedupIndex base = new DedupIndex(dir, 2, 4096);
+        addAll(base, "base", 100);
+        base.commit();
+        base.close();
+
+        // dies after inserting, before commit or close; sized so no rehash is left running
+        DedupIndex crashed = new DedupIndex(dir, 2, 4096);
+        check(addAll(crashed, "c", 500) == 500, "crashed run inserts its IDs");
+
+        DedupIndex next = new DedupIndex(dir, 2, 4096);
+        check(next.getPurgedCount() == 500, "reopen purges the crashed run's IDs");
+        check(addAll(next, "d", 500) == 500, "run after the crash inserts other IDs");
+        next.commit();
+        next.close();
+
+        DedupIndex later = new DedupIndex(dir, 2, 4096);
+        check(addAll(later, "c", 500) == 500, "IDs never emitted stay new once a later run committed");
+        check(addAll(later, "d", 500) == 0, "the committed run's IDs stay duplicates");
+        check(addAll(later, "base", 100) == 0, "older committed IDs stay duplicates");
+        later.close();
+        delete(dir);
+    }
+
+    private static void cancelledRunIsPurged() throws IOException {
+        File dir = tempDirectory();
+        DedupIndex cancelled = new DedupIndex(dir, 1, 16);
+        addAll(cancelled, "e", 200);
+        cancelled.close();
+
+        DedupIndex next = new DedupIndex(dir, 1, 16);
+        check(next.getGeneration() == 1, "a purged generation is reused");
+        check(next.getSize() == 0, "closing without commit keeps nothing");
+        check(addAll(next, "e", 200) == 200, "a cancelled run's IDs are new again");
+        next.close();
+        delete(dir);
+    }
+
+    private static void concurrentInsertsAcrossGrowth() throws Exception {
+        File dir = tempDirectory();
+        int threads = 8;
+        int perThread = 50_000;
+        DedupIndex index = new DedupIndex(dir, 4, 16);
+        AtomicLong fresh = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int start = t * perThread / 2; // each range overlaps half of the next one
+            tasks.add(pool.submit(() -> {
+                for (int i = start; i < start + perThread; i++) {
+                    if (index.add("g" + i)) {
+                        fresh.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        pool.shutdown();
+        long distinct = (threads + 1) * (long) perThread / 2;
+        check(fresh.get() == distinct, "each distinct ID is new exactly once across growth, got " + fresh.get());
+        check(addAll(index, "g", (int) distinct) == 0, "every ID is present after growth");
+        index.commit();
+        index.close();
+
+        DedupIndex reopened = new DedupIndex(dir, 4, 16);
+        check(reopened.getSize() == distinct, "grown shards reopen with every ID");
+        check(addAll(reopened, "g", (int) distinct) == 0, "grown shards keep every ID");
+        reopened.close();
+        delete(dir);
+    }
+
+    private static void uncommittedGrowthIsPurged() throws IOException {
+        File dir = tempDirectory();
+        DedupIndex base = new DedupIndex(dir, 1, 16);
+        addAll(base, "h", 10);
+        base.commit();
+        base.close();
+
+        DedupIndex grown = new DedupIndex(dir, 1, 16);
+        check(addAll(grown, "i", 20_000) == 20_000, "uncommitted run grows the shard");
+        grown.close();
+
+        DedupIndex next = new DedupIndex(dir, 1, 16);
+        check(next.getPurgedCount() == 20_000, "entries copied by growth are purged too");
+        check(next.getSize() == 10, "committed entries survive the purge");
+        check(addAll(next, "h", 10) == 0, "committed IDs stay duplicates after the purge");
+        check(addAll(next, "i", 20_000) == 20_000, "purged IDs are new again");
+        next.close();
+        delete(dir);
+    }
+
+    private static int addAll(DedupIndex index, String prefix, int count) {
+        int fresh = 0;
+        for (int i = 0; i < count; i++) {
+            if (index.add(prefix + i)) {
+                fresh++;
+            }
+        }
+        return fresh;
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError(description);
+        }
+        checks++;
+    }
+
+    private static File tempDirectory() throws IOException {
+        return Files.createTempDirectory("dedup-index-test").toFile();
+    }
+
+    private static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,115 @@
+package com.fileprocessor.dataprocessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Checks that the literal prefilter and case folding of MultiPatternMatcher
+ * agree with Pattern.find on generated lines. Run
+ * with java -cp bin:test-bin com.fileprocessor.dataprocessor.MultiPatternMatcherTest;
+ * exits non-zero on the first failure.
+ */
+public class MultiPatternMatcherTest {
+    private static final String[] REGEXES = {
+        "[a-z&&[^aeiou]]ing",
+        "[ab[cd]]x",
+        "[]a]x",
+        "[^]a]x",
+        "[\\]]x",
+        "([ab[cd]]x)y",
+        "err[0-9&&[^5]]+ing",
+        "b[a-c]d",
+        "x(ab|cd)y",
+    };
+    private static final String[] TOKENS = {
+        "a", "b", "c", "d", "e", "o", "s", "x", "y", "5", "7", "]", "[", "&",
+        "ing", "err", "]x", "]ing", "bx", "dx", "sing", "ax", "bcd", "cdy"
+    };
+    private static final String[] CASE_LITERALS = { "kit", "ing", "\u00e9t\u00e9" };
+    private static final String[] CASE_REGEXES = { "Ki[nt]g?", "[a-z&&[^aeiou]]ING", "\u00c9T\u00c9" };
+    private static final String[] CASE_TOKENS = {
+        "k", "K", "\u212a", "i", "I", "\u0130", "\u0131", "t", "T", "n", "N", "g", "G", "s", "S",
+        "\u00e9", "\u00c9", "kit", "KIT", "\u212aIT", "ING", "\u0130NG", "\u00c9T\u00c9", "\u00e9t\u00e9"
+    };
+    private static final int LINES = 20_000;
+    private static int checks;
+
+    public static void main(String[] args) {
+        requiredLiteralsSkipWholeClasses();
+        matchesAgreeWithPattern();
+        ignoreCaseAgreesWithPattern();
+        System.out.println("MultiPatternMatcherTest: " + checks + " checks passed");
+    }
+
+    private static void requiredLiteralsSkipWholeClasses() {
+        checkLiteral("[a-z&&[^aeiou]]ing", "ing");
+        checkLiteral("[ab[cd]]x", "x");
+        checkLiteral("[]a]x", "x");
+        checkLiteral("[^]a]x", "x");
+        checkLiteral("([ab[cd]]x)yz", "yz");
+        checkLiteral("abc[x]", "abc");
+    }
+
+    private static void matchesAgreeWithPattern() {
+        List<String> lines = generateLines(TOKENS);
+        for (String regex : REGEXES) {
+            compare(new MultiPatternMatcher().addRegex("r", regex), Pattern.compile(regex), regex, lines);
+        }
+    }
+
+    /**
+     * Ignoring case must fold exactly what CASE_INSENSITIVE folds: ASCII
+     * letters, but not e.g. the Kelvin sign or a dotted capital I
+     */
+    private static void ignoreCaseAgreesWithPattern() {
+        List<String> lines = generateLines(CASE_TOKENS);
+        for (String literal : CASE_LITERALS) {
+            compare(new MultiPatternMatcher(true).addLiteral("l", literal),
+                    Pattern.compile(Pattern.quote(literal), Pattern.CASE_INSENSITIVE), literal, lines);
+        }
+        for (String regex : CASE_REGEXES) {
+            compare(new MultiPatternMatcher(true).addRegex("r", regex),
+                    Pattern.compile(regex, Pattern.CASE_INSENSITIVE), regex, lines);
+        }
+    }
+
+    private static List<String> generateLines(String[] tokens) {
+        Random random = new Random(42);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int t = random.nextInt(8); t >= 0; t--) {
+                line.append(tokens[random.nextInt(tokens.length)]);
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private static void compare(MultiPatternMatcher matcher, Pattern pattern, String source, List<String> lines) {
+        int matched = 0;
+        for (String line : lines) {
+            boolean expected = pattern.matcher(line).find();
+            check((matcher.firstMatch(line) == 0) == expected,
+                  source + " on '" + line + "': Pattern.find says " + expected);
+            if (expected) {
+                matched++;
+            }
+        }
+        check(matched > 0, source + " matches some generated lines");
+    }
+
+    private static void checkLiteral(String regex, String expected) {
+        String actual = MultiPatternMatcher.extractRequiredLiteral(regex);
+        check(expected.equals(actual), regex + " requires '" + expected + "', got '" + actual + "'");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError(description);
+        }
+        checks++;
+    }
+}
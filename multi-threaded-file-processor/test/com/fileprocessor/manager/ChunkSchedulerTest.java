@@ -0,0 +1,100 @@
+package com.fileprocessor.manager;
+
+import com.fileprocessor.config.ProcessorConfig;
+import com.fileprocessor.config.ThreadConfig;
+import com.fileprocessor.dataprocessor.ProcessingContext;
+import com.fileprocessor.dataprocessor.Transformation;
+import com.fileprocessor.filereader.Chunk;
+import com.fileprocessor.model.ProcessingStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that ChunkScheduler finishes speculated chunks whatever order
+ * their attempts end in. Run with
+ * java -cp bin:test-bin com.fileprocessor.manager.ChunkSchedulerTest;
+ * exits non-zero on the first failure.
+ */
+public class ChunkSchedulerTest {
+    private static final long ORIGINAL_SLEEP_MILLIS = 5000;
+    private static int checks;
+
+    public static void main(String[] args) throws Exception {
+        winnerThrowsAfterCommit();
+        System.out.println("ChunkSchedulerTest: " + checks + " checks passed");
+    }
+
+    /**
+     * The speculative copy commits and then fails in the result sink while
+     * the original is still running; the chunk must finish as failed right
+     * away instead of waiting for an attempt that can no longer commit
+     */
+    private static void winnerThrowsAfterCommit() throws Exception {
+        AtomicInteger slowCalls = new AtomicInteger();
+        Transformation transformation = (line, lineNumber, sourceFile) -> {
+            if (line.equals("slow") && slowCalls.getAndIncrement() == 0) {
+                sleep(ORIGINAL_SLEEP_MILLIS);
+            }
+            return line;
+        };
+        ProcessingStats stats = new ProcessingStats();
+        ProcessingContext context = ProcessingContext.builder(transformation, stats)
+            .resultSink(results -> {
+                if (!results.isEmpty() && results.get(0).getContent().equals("slow")) {
+                    throw new IllegalStateException("sink rejected the slow chunk");
+                }
+            })
+            .build();
+        ProcessorConfig config = new ProcessorConfig();
+        config.setSpeculationMinMillis(100);
+        ThreadPoolManager pool = new ThreadPoolManager(new ThreadConfig(4, 4));
+        ChunkScheduler scheduler = new ChunkScheduler(pool, context, config);
+        List<String> finished = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(chunk("warmup-" + i, "fast"));
+        }
+        while (finished.size() < 3) {
+            scheduler.collectNext(1, TimeUnit.SECONDS, (chunk, result) -> { },
+                                  chunk -> finished.add(chunk.getChunkId()));
+        }
+
+        long start = System.nanoTime();
+        scheduler.submit(chunk("straggler", "slow"));
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(ORIGINAL_SLEEP_MILLIS / 2);
+        while (scheduler.hasPending() && System.nanoTime() < deadline) {
+            scheduler.collectNext(100, TimeUnit.MILLISECONDS, (chunk, result) -> { },
+                                  chunk -> finished.add(chunk.getChunkId()));
+        }
+        pool.shutdown();
+
+        check(stats.getSpeculativeLaunches() == 1, "the straggler is speculated");
+        check(!scheduler.hasPending(), "the chunk finishes once its committed attempt fails");
+        check(finished.contains("straggler"), "the failed chunk is reported as finished");
+        check(stats.getErrorCount() == 1, "the failed commit counts as one error, got " + stats.getErrorCount());
+    }
+
+    private static Chunk chunk(String chunkId, String line) {
+        return new Chunk(chunkId, "test.txt", Collections.singletonList(line), 1, 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError(description);
+        }
+        checks++;
+    }
+}